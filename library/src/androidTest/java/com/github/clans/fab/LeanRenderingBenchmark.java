@@ -0,0 +1,116 @@
+package com.github.clans.fab;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.test.AndroidTestCase;
+import android.util.Log;
+import android.view.View;
+
+/**
+ * Compares the layered background of a <b>FloatingActionButton</b> with lean rendering. Both modes
+ * have to draw the same pixels, and lean rendering must not draw slower into a software canvas.
+ * Draw times and the heap retained per button are also written to the log under {@link #TAG}.
+ */
+public class LeanRenderingBenchmark extends AndroidTestCase {
+
+    private static final String TAG = "LeanRenderingBenchmark";
+    private static final int WARMUP_DRAWS = 50;
+    private static final int DRAWS = 1000;
+    private static final int RETAINED_BUTTONS = 100;
+    private static final int PIXEL_TOLERANCE = 2;
+    private static final float DRAW_TIME_TOLERANCE = 0.1f;
+
+    public void testLeanRenderingDrawsSamePixels() {
+        Bitmap layered = drawOnce(createButton(false));
+        Bitmap lean = drawOnce(createButton(true));
+
+        for (int y = 0; y < layered.getHeight(); y++) {
+            for (int x = 0; x < layered.getWidth(); x++) {
+                int expected = layered.getPixel(x, y);
+                int actual = lean.getPixel(x, y);
+                if (!isSimilar(expected, actual)) {
+                    fail("Pixel at " + x + "," + y + " is " + Integer.toHexString(actual)
+                            + " instead of " + Integer.toHexString(expected));
+                }
+            }
+        }
+    }
+
+    public void testLeanRenderingIsNotSlower() {
+        long layeredDrawNanos = measureDraw(createButton(false));
+        long leanDrawNanos = measureDraw(createButton(true));
+        long layeredBytes = measureRetainedSize(false);
+        long leanBytes = measureRetainedSize(true);
+
+        Log.i(TAG, "layered: " + layeredDrawNanos / DRAWS + " ns/draw, " + layeredBytes + " bytes/button");
+        Log.i(TAG, "lean: " + leanDrawNanos / DRAWS + " ns/draw, " + leanBytes + " bytes/button");
+        assertTrue("lean rendering took " + leanDrawNanos + " ns against " + layeredDrawNanos + " ns",
+                leanDrawNanos <= layeredDrawNanos * (1f + DRAW_TIME_TOLERANCE));
+    }
+
+    private FloatingActionButton createButton(boolean lean) {
+        FloatingActionButton fab = new FloatingActionButton(getContext());
+        fab.setColorNormal(Color.RED);
+        fab.setImageDrawable(new ColorDrawable(Color.WHITE));
+        fab.setLeanRendering(lean);
+        int unspecified = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        fab.measure(unspecified, unspecified);
+        fab.layout(0, 0, fab.getMeasuredWidth(), fab.getMeasuredHeight());
+        return fab;
+    }
+
+    private Bitmap drawOnce(View view) {
+        Bitmap bitmap = Bitmap.createBitmap(view.getWidth(), view.getHeight(), Bitmap.Config.ARGB_8888);
+        view.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    private long measureDraw(View view) {
+        Bitmap bitmap = Bitmap.createBitmap(view.getWidth(), view.getHeight(), Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        for (int i = 0; i < WARMUP_DRAWS; i++) {
+            view.draw(canvas);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < DRAWS; i++) {
+            bitmap.eraseColor(Color.TRANSPARENT);
+            view.draw(canvas);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Approximates the heap each button keeps alive, shared shadow bitmaps excluded, from the heap
+     * growth while holding {@link #RETAINED_BUTTONS} of them.
+     */
+    private long measureRetainedSize(boolean lean) {
+        createButton(lean);
+        long before = usedMemory();
+        FloatingActionButton[] buttons = new FloatingActionButton[RETAINED_BUTTONS];
+        for (int i = 0; i < buttons.length; i++) {
+            buttons[i] = createButton(lean);
+        }
+        long after = usedMemory();
+        assertNotNull(buttons[buttons.length - 1]);
+        return (after - before) / RETAINED_BUTTONS;
+    }
+
+    private static boolean isSimilar(int expected, int actual) {
+        return Math.abs(Color.alpha(expected) - Color.alpha(actual)) <= PIXEL_TOLERANCE
+                && Math.abs(Color.red(expected) - Color.red(actual)) <= PIXEL_TOLERANCE
+                && Math.abs(Color.green(expected) - Color.green(actual)) <= PIXEL_TOLERANCE
+                && Math.abs(Color.blue(expected) - Color.blue(actual)) <= PIXEL_TOLERANCE;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            runtime.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.clans.fab;
+
+import android.annotation.TargetApi;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.RippleDrawable;
+import android.graphics.drawable.StateListDrawable;
+import android.os.Build;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.test.InstrumentationTestCase;
+import android.test.UiThreadTest;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Checks that a tap on a <b>FloatingActionButton</b> or on its label, sent as real touch events,
+ * does not allocate. From API 21 on the button's {@link RippleDrawable} allocates for every press
+ * by itself, so there a tap may allocate no more than driving such a ripple directly does.
+ * <p>
+ * The views are not clickable, so only the library's own press handling runs: the framework's
+ * click handling posts through a queue that allocates while a view is not attached.
+ */
+public class PressAllocationTest extends InstrumentationTestCase {
+
+    private static final int WARMUP_TAPS = 10;
+    private static final int TAPS = 100;
+
+    private static final int[] PRESSED_STATE = {android.R.attr.state_pressed, android.R.attr.state_enabled};
+    private static final int[] EMPTY_STATE = {};
+
+    private MotionEvent mDown;
+    private MotionEvent mUp;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        long now = SystemClock.uptimeMillis();
+        mDown = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, 10f, 10f, 0);
+        mUp = MotionEvent.obtain(now, now + 50, MotionEvent.ACTION_UP, 10f, 10f, 0);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mDown.recycle();
+        mUp.recycle();
+        super.tearDown();
+    }
+
+    @UiThreadTest
+    public void testFabTapDoesNotAllocate() {
+        FloatingActionButton fab = createFab();
+        assertTapAllocations(fab, fab);
+    }
+
+    @UiThreadTest
+    public void testLeanFabTapDoesNotAllocate() {
+        FloatingActionButton fab = createFab();
+        fab.setLeanRendering(true);
+        assertTapAllocations(fab, fab);
+    }
+
+    @UiThreadTest
+    public void testLabelTapDoesNotAllocate() {
+        StateListDrawable background = new StateListDrawable();
+        background.addState(new int[]{android.R.attr.state_pressed}, new ColorDrawable(Color.DKGRAY));
+        background.addState(new int[]{}, new ColorDrawable(Color.GRAY));
+
+        FloatingActionButton fab = createFab();
+        Label label = new Label(getInstrumentation().getTargetContext());
+        label.setFab(fab);
+        label.setUsingStyle(true);
+        setBackground(label, background);
+        assertTapAllocations(label, fab);
+    }
+
+    private FloatingActionButton createFab() {
+        FloatingActionButton fab = new FloatingActionButton(getInstrumentation().getTargetContext());
+        fab.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+            }
+        });
+        fab.setClickable(false);
+
+        int unspecified = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        fab.measure(unspecified, unspecified);
+        fab.layout(0, 0, fab.getMeasuredWidth(), fab.getMeasuredHeight());
+        return fab;
+    }
+
+    private void assertTapAllocations(final View view, FloatingActionButton fab) {
+        int allowed = Util.hasLollipop() && !fab.isLeanRendering() ? countRippleAllocations(fab) : 0;
+        int allocations = countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                view.dispatchTouchEvent(mDown);
+                view.dispatchTouchEvent(mUp);
+            }
+        });
+        assertTrue(allocations + " allocations, at most " + allowed + " expected", allocations <= allowed);
+    }
+
+    /**
+     * Counts what a ripple like the button's allocates when it is pressed and released directly.
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static int countRippleAllocations(FloatingActionButton fab) {
+        final RippleDrawable ripple = new RippleDrawable(BackgroundCache.getColorStateList(fab.getColorRipple()),
+                new ColorDrawable(fab.getColorNormal()), null);
+        ripple.setBounds(0, 0, fab.getWidth(), fab.getHeight());
+        final float x = fab.getWidth() / 2f;
+        final float y = fab.getHeight() / 2f;
+
+        return countAllocations(new Runnable() {
+            @Override
+            public void run() {
+                ripple.setState(PRESSED_STATE);
+                ripple.setHotspot(x, y);
+                ripple.setVisible(true, true);
+                ripple.setState(EMPTY_STATE);
+                ripple.setHotspot(x, y);
+                ripple.setVisible(true, true);
+            }
+        });
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void setBackground(View view, StateListDrawable background) {
+        view.setBackgroundDrawable(background);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int countAllocations(Runnable tap) {
+        for (int i = 0; i < WARMUP_TAPS; i++) {
+            tap.run();
+        }
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        try {
+            for (int i = 0; i < TAPS; i++) {
+                tap.run();
+            }
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        return Debug.getThreadAllocCount();
+    }
+}
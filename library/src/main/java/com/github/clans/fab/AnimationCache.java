@@ -0,0 +1,128 @@
+package com.github.clans.fab;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.LruCache;
+import android.view.animation.Animation;
+import android.view.animation.AnimationUtils;
+import android.view.animation.LinearInterpolator;
+import android.view.animation.Transformation;
+
+/**
+ * Animations loaded by resource id. Each resource is parsed once into a private template, and every
+ * view gets a thin animation of its own that plays the template, so views can still run the same
+ * animation at overlapping times. The cache is emptied whenever the resource configuration changes.
+ */
+final class AnimationCache {
+
+    private static final int MAX_ANIMATIONS = 8;
+
+    private static final LruCache<Integer, Template> sTemplates = new LruCache<>(MAX_ANIMATIONS);
+    private static final Configuration sConfiguration = new Configuration();
+
+    private AnimationCache() {
+    }
+
+    /**
+     * Returns a new animation for the given id. Animations that repeat are loaded as they are,
+     * since the template is replayed from its start on every frame.
+     */
+    static Animation getAnimation(Context context, int resId) {
+        Configuration configuration = context.getResources().getConfiguration();
+        if (!sConfiguration.equals(configuration)) {
+            sTemplates.evictAll();
+            sConfiguration.setTo(configuration);
+        }
+
+        Template template = sTemplates.get(resId);
+        if (template == null) {
+            Animation animation = AnimationUtils.loadAnimation(context, resId);
+            if (animation.getRepeatCount() != 0) {
+                return animation;
+            }
+            template = new Template(animation);
+            sTemplates.put(resId, template);
+        }
+        return new SharedAnimation(template);
+    }
+
+    /**
+     * A parsed animation that no view runs directly, with the sizes it was last initialized for.
+     */
+    private static final class Template {
+
+        private final Animation mAnimation;
+        private int mWidth = -1;
+        private int mHeight = -1;
+        private int mParentWidth = -1;
+        private int mParentHeight = -1;
+
+        private Template(Animation animation) {
+            mAnimation = animation;
+        }
+
+        private void initialize(int width, int height, int parentWidth, int parentHeight) {
+            if (width != mWidth || height != mHeight
+                    || parentWidth != mParentWidth || parentHeight != mParentHeight) {
+                mWidth = width;
+                mHeight = height;
+                mParentWidth = parentWidth;
+                mParentHeight = parentHeight;
+                mAnimation.initialize(width, height, parentWidth, parentHeight);
+            }
+        }
+    }
+
+    /**
+     * Runs linearly over the template's whole duration and takes each frame from the template at
+     * the same point in time.
+     */
+    private static final class SharedAnimation extends Animation {
+
+        private static final LinearInterpolator INTERPOLATOR = new LinearInterpolator();
+
+        private final Template mTemplate;
+        private int mWidth;
+        private int mHeight;
+        private int mParentWidth;
+        private int mParentHeight;
+
+        private SharedAnimation(Template template) {
+            mTemplate = template;
+            Animation animation = template.mAnimation;
+            setDuration(animation.computeDurationHint());
+            setInterpolator(INTERPOLATOR);
+            setFillEnabled(animation.isFillEnabled());
+            setFillBefore(animation.getFillBefore());
+            setFillAfter(animation.getFillAfter());
+            setZAdjustment(animation.getZAdjustment());
+        }
+
+        @Override
+        public void initialize(int width, int height, int parentWidth, int parentHeight) {
+            super.initialize(width, height, parentWidth, parentHeight);
+            mWidth = width;
+            mHeight = height;
+            mParentWidth = parentWidth;
+            mParentHeight = parentHeight;
+        }
+
+        @Override
+        protected void applyTransformation(float interpolatedTime, Transformation t) {
+            Animation animation = mTemplate.mAnimation;
+            mTemplate.initialize(mWidth, mHeight, mParentWidth, mParentHeight);
+            animation.setStartTime(0);
+            animation.getTransformation((long) (interpolatedTime * getDuration()), t);
+        }
+
+        @Override
+        public boolean willChangeTransformationMatrix() {
+            return mTemplate.mAnimation.willChangeTransformationMatrix();
+        }
+
+        @Override
+        public boolean willChangeBounds() {
+            return mTemplate.mAnimation.willChangeBounds();
+        }
+    }
+}
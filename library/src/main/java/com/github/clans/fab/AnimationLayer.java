@@ -0,0 +1,41 @@
+package com.github.clans.fab;
+
+import android.view.View;
+
+/**
+ * Keeps a view on a hardware layer while a view animation runs, so that each frame only
+ * recomposites the cached layer instead of redrawing the view, and then puts back the layer type
+ * the view had before.
+ */
+final class AnimationLayer {
+
+    private final View mView;
+    private boolean mActive;
+    private int mPreviousLayerType;
+
+    AnimationLayer(View view) {
+        mView = view;
+    }
+
+    /**
+     * Call from {@link View#onAnimationStart()}.
+     */
+    void start() {
+        if (!mActive && mView.isHardwareAccelerated()) {
+            mActive = true;
+            mPreviousLayerType = mView.getLayerType();
+            mView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        }
+    }
+
+    /**
+     * Call from {@link View#onAnimationEnd()} and {@link View#onDetachedFromWindow()}, and when the
+     * animation is cleared: {@link View#clearAnimation()} does not call onAnimationEnd().
+     */
+    void stop() {
+        if (mActive) {
+            mActive = false;
+            mView.setLayerType(mPreviousLayerType, null);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.clans.fab;
+
+import android.annotation.TargetApi;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.graphics.Outline;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.ShapeDrawable;
+import android.graphics.drawable.shapes.OvalShape;
+import android.os.Build;
+import android.util.LruCache;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewOutlineProvider;
+
+/**
+ * Background state shared by every <b>FloatingActionButton</b> with the same colors and size: the
+ * circles' shape and paint, the ripple color lists and the oval outline. Each view still creates
+ * its own drawables around that state, and must never mutate or recolor the shared circles.
+ */
+final class BackgroundCache {
+
+    private static final int MAX_CIRCLES = 32;
+    private static final int MAX_COLOR_STATE_LISTS = 32;
+
+    /**
+     * Keyed by both color and diameter: drawables created from the same state share their
+     * {@link OvalShape}, which is resized to the bounds of whichever drawable changed them last.
+     */
+    private static final LruCache<Long, Drawable.ConstantState> sCircles = new LruCache<>(MAX_CIRCLES);
+    private static final SparseArray<ColorStateList> sColorStateLists = new SparseArray<>();
+    private static ViewOutlineProvider sOvalOutlineProvider;
+
+    private BackgroundCache() {
+    }
+
+    static ShapeDrawable newCircleDrawable(Resources res, int color, int diameter) {
+        Long key = ((long) diameter << 32) | (color & 0xFFFFFFFFL);
+        Drawable.ConstantState state = sCircles.get(key);
+        if (state == null) {
+            ShapeDrawable shapeDrawable = new ShapeDrawable(new OvalShape());
+            shapeDrawable.getPaint().setColor(color);
+            state = shapeDrawable.getConstantState();
+            sCircles.put(key, state);
+        }
+        return (ShapeDrawable) state.newDrawable(res);
+    }
+
+    static ColorStateList getColorStateList(int color) {
+        ColorStateList colorStateList = sColorStateLists.get(color);
+        if (colorStateList == null) {
+            if (sColorStateLists.size() >= MAX_COLOR_STATE_LISTS) {
+                sColorStateLists.clear();
+            }
+            colorStateList = ColorStateList.valueOf(color);
+            sColorStateLists.put(color, colorStateList);
+        }
+        return colorStateList;
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    static ViewOutlineProvider getOvalOutlineProvider() {
+        if (sOvalOutlineProvider == null) {
+            sOvalOutlineProvider = new ViewOutlineProvider() {
+                @Override
+                public void getOutline(View view, Outline outline) {
+                    outline.setOval(0, 0, view.getWidth(), view.getHeight());
+                }
+            };
+        }
+        return sOvalOutlineProvider;
+    }
+}
@@ -1,35 +1,35 @@
 package com.github.clans.fab;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.annotation.TargetApi;
 import android.content.Context;
-import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.ColorFilter;
-import android.graphics.Outline;
 import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
-import android.graphics.Xfermode;
-import android.graphics.drawable.ColorDrawable;
+import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.LayerDrawable;
 import android.graphics.drawable.RippleDrawable;
 import android.graphics.drawable.ShapeDrawable;
 import android.graphics.drawable.StateListDrawable;
 import android.graphics.drawable.shapes.OvalShape;
-import android.graphics.drawable.shapes.Shape;
 import android.os.Build;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
-import android.view.GestureDetector;
+import android.util.SparseArray;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.ViewOutlineProvider;
+import android.view.ViewPropertyAnimator;
 import android.view.animation.Animation;
+import android.view.animation.AccelerateInterpolator;
 import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+import android.view.animation.OvershootInterpolator;
 import android.widget.AbsListView;
 import android.widget.AbsListView.OnScrollListener;
 import android.widget.ImageButton;
@@ -40,6 +40,11 @@ public class FloatingActionButton extends ImageButton {
     public static final int SIZE_NORMAL = 0;
     public static final int SIZE_MINI = 1;
 
+    private static final int MAX_CACHED_ANIMATIONS = 4;
+    private static final int PROPERTY_ANIMATION_DURATION = 200;
+    private static final Interpolator PROPERTY_SHOW_INTERPOLATOR = new OvershootInterpolator();
+    private static final Interpolator PROPERTY_HIDE_INTERPOLATOR = new AccelerateInterpolator(2.5f);
+
     int mFabSize;
     boolean mShowShadow;
     int mShadowColor;
@@ -47,20 +52,47 @@ public class FloatingActionButton extends ImageButton {
     int mShadowXOffset = Util.dpToPx(getContext(), 1f);
     int mShadowYOffset = Util.dpToPx(getContext(), 3f);
 
-    private static final Xfermode PORTER_DUFF_CLEAR = new PorterDuffXfermode(PorterDuff.Mode.CLEAR);
-
     private int mColorNormal;
     private int mColorPressed;
     private int mColorRipple;
     private Drawable mIcon;
+    private int mIconResId;
     private int mIconSize = Util.dpToPx(getContext(), 24f);
     private Animation mShowAnimation;
+    private float mShowOvershoot;
     private Animation mHideAnimation;
     private String mLabelText;
     private OnClickListener mClickListener;
+    private Label mLabel;
+    private PressTracker mPressTracker;
     private Drawable mBackgroundDrawable;
+    private ShapeDrawable mNormalCircle;
+    private ShapeDrawable mPressedCircle;
+    private boolean mCirclesShared;
+    private Shadow mShadow;
     private boolean mUsingElevation;
     private boolean mUsingElevationCompat;
+    private int mUpdateDepth;
+    private boolean mLeanRendering;
+    private boolean mLeanPressed;
+    private Bitmap mLeanShadowBitmap;
+    private Paint mLeanShadowPaint;
+    private Paint mLeanFillPaint;
+    private float mLeanCenterX;
+    private float mLeanCenterY;
+    private float mLeanRadius;
+    private boolean mBackgroundInvalidated;
+    private boolean mLayoutInvalidated;
+    private final AnimationLayer mAnimationLayer = new AnimationLayer(this);
+    private boolean mUsePropertyAnimations;
+    private boolean mPropertyHiding;
+    private Runnable mPropertyHideEndAction;
+    private Animator.AnimatorListener mPropertyHideListener;
+    private SparseArray<Animation> mAnimations;
+    private ScrollHideEngine mScrollHideEngine;
+    private ScrollSource mScrollSource;
+    private ScrollSource mOwnedScrollSource;
+    private View mOwnedScrollView;
 
     public FloatingActionButton(Context context) {
         this(context, null);
@@ -93,6 +125,8 @@ public class FloatingActionButton extends ImageButton {
         mShadowYOffset = attr.getDimensionPixelSize(R.styleable.FloatingActionButton_fab_shadowYOffset, mShadowYOffset);
         mFabSize = attr.getInt(R.styleable.FloatingActionButton_fab_size, SIZE_NORMAL);
         mLabelText = attr.getString(R.styleable.FloatingActionButton_fab_label);
+        mLeanRendering = attr.getBoolean(R.styleable.FloatingActionButton_fab_leanRendering, false);
+        mUsePropertyAnimations = attr.getBoolean(R.styleable.FloatingActionButton_fab_usePropertyAnimations, false);
         if (attr.hasValue(R.styleable.FloatingActionButton_fab_elevationCompat)) {
             float elevation = attr.getDimensionPixelOffset(R.styleable.FloatingActionButton_fab_elevationCompat, 0);
             setElevationCompat(elevation);
@@ -111,6 +145,7 @@ public class FloatingActionButton extends ImageButton {
     private void initShowAnimation(TypedArray attr) {
         int resourceId = attr.getResourceId(R.styleable.FloatingActionButton_fab_showAnimation, R.anim.fab_scale_up);
         mShowAnimation = AnimationUtils.loadAnimation(getContext(), resourceId);
+        mShowOvershoot = Util.getScaleOvershoot(mShowAnimation);
     }
 
     private void initHideAnimation(TypedArray attr) {
@@ -174,69 +209,193 @@ public class FloatingActionButton extends ImageButton {
     }
 
     void updateBackground() {
-        LayerDrawable layerDrawable;
+        if (mLeanRendering) {
+            updateLeanRendering();
+            return;
+        }
+
+        Drawable icon = getIconDrawable();
+        Drawable[] layers = new Drawable[(hasShadow() ? 2 : 1) + (icon != null ? 1 : 0)];
+        int fillIndex = 0;
         if (hasShadow()) {
-            layerDrawable = new LayerDrawable(new Drawable[] {
-                    new Shadow(),
-                    createFillDrawable(),
-                    getIconDrawable()
-            });
+            mShadow = new Shadow();
+            layers[fillIndex++] = mShadow;
         } else {
-            layerDrawable = new LayerDrawable(new Drawable[] {
-                    createFillDrawable(),
-                    getIconDrawable()
-            });
+            mShadow = null;
         }
-
-        int iconSize = -1;
-        if (getIconDrawable() != null) {
-            iconSize = Math.max(getIconDrawable().getIntrinsicWidth(), getIconDrawable().getIntrinsicHeight());
+        layers[fillIndex] = createFillDrawable();
+        if (icon != null) {
+            layers[fillIndex + 1] = icon;
         }
-        int iconOffset = (getCircleSize() - (iconSize > 0 ? iconSize : mIconSize)) / 2;
+        LayerDrawable layerDrawable = new LayerDrawable(layers);
+        layerDrawable.setId(fillIndex, R.id.fab_fill);
+
         int circleInsetHorizontal = hasShadow() ? mShadowRadius + Math.abs(mShadowXOffset) : 0;
         int circleInsetVertical = hasShadow() ? mShadowRadius + Math.abs(mShadowYOffset) : 0;
 
-        /*layerDrawable.setLayerInset(
-                mShowShadow ? 1 : 0,
+        layerDrawable.setLayerInset(
+                fillIndex,
                 circleInsetHorizontal,
                 circleInsetVertical,
                 circleInsetHorizontal,
                 circleInsetVertical
-        );*/
-        layerDrawable.setLayerInset(
-                hasShadow() ? 2 : 1,
-                circleInsetHorizontal + iconOffset,
-                circleInsetVertical + iconOffset,
-                circleInsetHorizontal + iconOffset,
-                circleInsetVertical + iconOffset
         );
 
+        if (icon != null) {
+            int iconSize = Math.max(icon.getIntrinsicWidth(), icon.getIntrinsicHeight());
+            int iconOffset = (getCircleSize() - (iconSize > 0 ? iconSize : mIconSize)) / 2;
+            layerDrawable.setLayerInset(
+                    fillIndex + 1,
+                    circleInsetHorizontal + iconOffset,
+                    circleInsetVertical + iconOffset,
+                    circleInsetHorizontal + iconOffset,
+                    circleInsetVertical + iconOffset
+            );
+        }
+
         setBackgroundCompat(layerDrawable);
     }
 
-    protected Drawable getIconDrawable() {
-        if (mIcon != null) {
-            return mIcon;
+    /**
+     * Prepares the single-pass drawing done in {@link #onDraw(Canvas)}. No background drawables
+     * are created: only the shared shadow bitmap is looked up and the icon is positioned.
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void updateLeanRendering() {
+        mBackgroundDrawable = null;
+        mNormalCircle = null;
+        mPressedCircle = null;
+        mShadow = null;
+        setBackgroundCompat(null);
+
+        if (mLeanFillPaint == null) {
+            mLeanFillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mLeanFillPaint.setStyle(Paint.Style.FILL);
+            mLeanShadowPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        }
+
+        if (hasShadow() && !isInEditMode()) {
+            mLeanShadowBitmap = ShadowCache.getCircleShadow(getCircleSize(), mShadowRadius, mShadowXOffset,
+                    mShadowYOffset, getResources().getDisplayMetrics().density);
         } else {
-            return new ColorDrawable(Color.TRANSPARENT);
+            mLeanShadowBitmap = null;
+        }
+
+        mLeanCenterX = calculateMeasuredWidth() / 2;
+        mLeanCenterY = calculateMeasuredHeight() / 2;
+        mLeanRadius = getCircleSize() / 2;
+
+        if (mIcon != null) {
+            mIcon.setCallback(this);
+            if (mIcon.isStateful()) {
+                mIcon.setState(getDrawableState());
+            }
+
+            int iconSize = Math.max(mIcon.getIntrinsicWidth(), mIcon.getIntrinsicHeight());
+            int iconOffset = (getCircleSize() - (iconSize > 0 ? iconSize : mIconSize)) / 2;
+            int iconInsetHorizontal = (hasShadow() ? mShadowRadius + Math.abs(mShadowXOffset) : 0) + iconOffset;
+            int iconInsetVertical = (hasShadow() ? mShadowRadius + Math.abs(mShadowYOffset) : 0) + iconOffset;
+            mIcon.setBounds(iconInsetHorizontal, iconInsetVertical,
+                    calculateMeasuredWidth() - iconInsetHorizontal, calculateMeasuredHeight() - iconInsetVertical);
+        }
+
+        if (Util.hasLollipop()) {
+            setOutlineProvider(BackgroundCache.getOvalOutlineProvider());
+            setClipToOutline(true);
+        }
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (!mLeanRendering) {
+            super.onDraw(canvas);
+            return;
+        }
+
+        if (mLeanShadowBitmap != null) {
+            mLeanShadowPaint.setColor(mShadowColor);
+            canvas.drawBitmap(mLeanShadowBitmap, 0, 0, mLeanShadowPaint);
+        }
+
+        mLeanFillPaint.setColor(mLeanPressed ? mColorPressed : mColorNormal);
+        canvas.drawCircle(mLeanCenterX, mLeanCenterY, mLeanRadius, mLeanFillPaint);
+
+        if (mIcon != null) {
+            mIcon.draw(canvas);
+        }
+    }
+
+    /**
+     * In lean mode the icon is drawn by the view itself, so it has to be accepted here for its
+     * invalidations and scheduled frames to reach the view.
+     */
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return super.verifyDrawable(who) || (mLeanRendering && who == mIcon);
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        if (mLeanRendering && mIcon != null && mIcon.isStateful()) {
+            mIcon.setState(getDrawableState());
+        }
+    }
+
+    @Override
+    public void jumpDrawablesToCurrentState() {
+        super.jumpDrawablesToCurrentState();
+        if (mLeanRendering && mIcon != null) {
+            mIcon.jumpToCurrentState();
+        }
+    }
+
+    /**
+     * Stops an icon that is being replaced from invalidating this view.
+     */
+    private void releaseIcon() {
+        if (mIcon != null && mIcon.getCallback() == this) {
+            mIcon.setCallback(null);
         }
     }
 
+    /**
+     * Rebuilds the background right away, or defers it until {@link #commitUpdate()} when called
+     * inside a {@link #beginUpdate()} block.
+     */
+    private void invalidateBackground(boolean layout) {
+        if (mUpdateDepth > 0) {
+            mBackgroundInvalidated = true;
+            mLayoutInvalidated |= layout;
+            return;
+        }
+
+        if (layout) {
+            requestLayout();
+        }
+        updateBackground();
+    }
+
+    /**
+     * Returns the icon drawn on top of the circle, or null when there is none. No layer is
+     * created for a missing icon.
+     */
+    protected Drawable getIconDrawable() {
+        return mIcon;
+    }
+
     @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     private Drawable createFillDrawable() {
-        StateListDrawable drawable = new StateListDrawable();
-        drawable.addState(new int[] {android.R.attr.state_pressed}, createCircleDrawable(mColorPressed));
-        drawable.addState(new int[] {}, createCircleDrawable(mColorNormal));
+        StateListDrawable drawable = createCircles(createCircleDrawable(mColorNormal),
+                createCircleDrawable(mColorPressed));
+        mCirclesShared = true;
 
         if (Util.hasLollipop()) {
-            RippleDrawable ripple = new RippleDrawable(new ColorStateList(new int[][] {{}},
-                    new int[] {mColorRipple}), drawable, null);
-            setOutlineProvider(new ViewOutlineProvider() {
-                @Override
-                public void getOutline(View view, Outline outline) {
-                    outline.setOval(0, 0, view.getWidth(), view.getHeight());
-                }
-            });
+            RippleDrawable ripple = new RippleDrawable(BackgroundCache.getColorStateList(mColorRipple),
+                    drawable, null);
+            ripple.setId(0, R.id.fab_fill);
+            setOutlineProvider(BackgroundCache.getOvalOutlineProvider());
             setClipToOutline(true);
             mBackgroundDrawable = ripple;
             return ripple;
@@ -246,8 +405,67 @@ public class FloatingActionButton extends ImageButton {
         return drawable;
     }
 
-    private Drawable createCircleDrawable(int color) {
-        CircleDrawable shapeDrawable = new CircleDrawable(new OvalShape());
+    private StateListDrawable createCircles(ShapeDrawable normalCircle, ShapeDrawable pressedCircle) {
+        mNormalCircle = normalCircle;
+        mPressedCircle = pressedCircle;
+
+        StateListDrawable drawable = new StateListDrawable();
+        drawable.addState(PRESSED_STATE_SET, pressedCircle);
+        drawable.addState(EMPTY_STATE_SET, normalCircle);
+        return drawable;
+    }
+
+    private ShapeDrawable createCircleDrawable(int color) {
+        return BackgroundCache.newCircleDrawable(getResources(), color, getCircleSize());
+    }
+
+    /**
+     * Recolors the existing circles in place instead of rebuilding the background.
+     */
+    private void updateCircleColor(ShapeDrawable circle, int color) {
+        if (mLeanRendering) {
+            invalidate();
+            return;
+        }
+
+        if (circle == null) {
+            invalidateBackground(false);
+            return;
+        }
+
+        if (mCirclesShared) {
+            detachCircles();
+            return;
+        }
+
+        circle.getPaint().setColor(color);
+        circle.invalidateSelf();
+    }
+
+    /**
+     * Swaps the circles shared through {@link BackgroundCache} for ones owned by this view, in the
+     * current colors, on the first color change only. The shared circles cannot be recolored: on
+     * older platform versions {@link ShapeDrawable#mutate()} keeps sharing their paint with every
+     * button built from the same state.
+     */
+    private void detachCircles() {
+        LayerDrawable parent = (LayerDrawable) (Util.hasLollipop() ? mBackgroundDrawable : getBackground());
+        Drawable sharedFill = parent.findDrawableByLayerId(R.id.fab_fill);
+
+        StateListDrawable fill = createCircles(createOwnCircleDrawable(mColorNormal),
+                createOwnCircleDrawable(mColorPressed));
+        mCirclesShared = false;
+        fill.setState(sharedFill.getState());
+        fill.setBounds(sharedFill.getBounds());
+        parent.setDrawableByLayerId(R.id.fab_fill, fill);
+        if (!Util.hasLollipop()) {
+            mBackgroundDrawable = fill;
+        }
+        parent.invalidateSelf();
+    }
+
+    private static ShapeDrawable createOwnCircleDrawable(int color) {
+        ShapeDrawable shapeDrawable = new ShapeDrawable(new OvalShape());
         shapeDrawable.getPaint().setColor(color);
         return shapeDrawable;
     }
@@ -266,24 +484,168 @@ public class FloatingActionButton extends ImageButton {
         return mShowAnimation;
     }
 
+    /**
+     * Returns how far past its size the button grows while the show animation overshoots, as a
+     * fraction of that size. Worked out once whenever the show animation is set.
+     */
+    float getShowOvershoot() {
+        return mShowOvershoot;
+    }
+
     Animation getHideAnimation() {
         return mHideAnimation;
     }
 
+    /**
+     * Returns this view's instance of the animation with the given id. The resource itself is
+     * parsed once for all views by {@link AnimationCache}.
+     */
+    private Animation getAnimation(int animationResId) {
+        if (mAnimations == null) {
+            mAnimations = new SparseArray<>(2);
+        }
+
+        Animation animation = mAnimations.get(animationResId);
+        if (animation == null) {
+            if (mAnimations.size() >= MAX_CACHED_ANIMATIONS) {
+                mAnimations.clear();
+            }
+            animation = AnimationCache.getAnimation(getContext(), animationResId);
+            mAnimations.put(animationResId, animation);
+        }
+        return animation;
+    }
+
     void playShowAnimation() {
-        startAnimation(mShowAnimation);
+        if (mUsePropertyAnimations) {
+            animateShow();
+        } else {
+            startAnimation(mShowAnimation);
+        }
     }
 
     void playHideAnimation() {
-        startAnimation(mHideAnimation);
+        if (mUsePropertyAnimations) {
+            animateHide();
+        } else {
+            startAnimation(mHideAnimation);
+        }
+    }
+
+    /**
+     * Scales and fades the button in from where it is, or from nothing if it is not visible yet.
+     * No listener is attached, so on API 21+ the animation can run on the render thread.
+     */
+    private void animateShow() {
+        if (mPropertyHiding) {
+            mPropertyHiding = false;
+            animate().cancel();
+        }
+        if (getVisibility() != VISIBLE) {
+            setScaleX(0f);
+            setScaleY(0f);
+            setAlpha(0f);
+        }
+        animate().scaleX(1f).scaleY(1f).alpha(1f)
+                .setListener(null)
+                .setInterpolator(PROPERTY_SHOW_INTERPOLATOR)
+                .setDuration(PROPERTY_ANIMATION_DURATION);
+    }
+
+    /**
+     * Scales and fades the button out and only then makes it {@link #INVISIBLE}. From API 16 on the
+     * visibility change is an end action; older platforms need an animator listener instead.
+     */
+    private void animateHide() {
+        if (mPropertyHideEndAction == null) {
+            mPropertyHideEndAction = new Runnable() {
+                @Override
+                public void run() {
+                    // A show or a cancel may have ended the hide before it finished
+                    if (mPropertyHiding) {
+                        mPropertyHiding = false;
+                        setVisibility(INVISIBLE);
+                    }
+                }
+            };
+        }
+
+        mPropertyHiding = true;
+        ViewPropertyAnimator animator = animate().scaleX(0f).scaleY(0f).alpha(0f)
+                .setInterpolator(PROPERTY_HIDE_INTERPOLATOR)
+                .setDuration(PROPERTY_ANIMATION_DURATION);
+        if (Util.hasJellyBean()) {
+            animator.withEndAction(mPropertyHideEndAction);
+        } else {
+            if (mPropertyHideListener == null) {
+                mPropertyHideListener = new AnimatorListenerAdapter() {
+                    @Override
+                    public void onAnimationEnd(Animator animation) {
+                        mPropertyHideEndAction.run();
+                    }
+                };
+            }
+            animator.setListener(mPropertyHideListener);
+        }
+    }
+
+    /**
+     * Ends any property animation and puts the button back at its natural scale and alpha.
+     */
+    private void cancelPropertyAnimation() {
+        if (mUsePropertyAnimations) {
+            mPropertyHiding = false;
+            animate().cancel();
+            animate().setListener(null);
+            setScaleX(1f);
+            setScaleY(1f);
+            setAlpha(1f);
+        }
+    }
+
+    @Override
+    protected void onAnimationStart() {
+        super.onAnimationStart();
+        mAnimationLayer.start();
+    }
+
+    @Override
+    protected void onAnimationEnd() {
+        super.onAnimationEnd();
+        mAnimationLayer.stop();
+    }
+
+    @Override
+    public void setAnimation(Animation animation) {
+        super.setAnimation(animation);
+        if (animation == null) {
+            mAnimationLayer.stop();
+        }
+    }
+
+    @Override
+    public void clearAnimation() {
+        super.clearAnimation();
+        mAnimationLayer.stop();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mAnimationLayer.stop();
+        super.onDetachedFromWindow();
     }
 
     OnClickListener getOnClickListener() {
         return mClickListener;
     }
 
-    TextView getLabelView() {
-        return (TextView) getTag(R.id.fab_label);
+    Label getLabelView() {
+        return mLabel;
+    }
+
+    void setLabelView(Label label) {
+        mLabel = label;
+        setTag(R.id.fab_label, label);
     }
 
     void setColors(int colorNormal, int colorPressed, int colorRipple) {
@@ -294,12 +656,15 @@ public class FloatingActionButton extends ImageButton {
 
     @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     void onActionDown() {
-        if (mBackgroundDrawable instanceof StateListDrawable) {
+        if (mLeanRendering) {
+            mLeanPressed = true;
+            invalidate();
+        } else if (mBackgroundDrawable instanceof StateListDrawable) {
             StateListDrawable drawable = (StateListDrawable) mBackgroundDrawable;
-            drawable.setState(new int[] {android.R.attr.state_pressed});
+            drawable.setState(PRESSED_STATE_SET);
         } else if (Util.hasLollipop()) {
             RippleDrawable ripple = (RippleDrawable) mBackgroundDrawable;
-            ripple.setState(new int[] {android.R.attr.state_enabled, android.R.attr.state_pressed});
+            ripple.setState(PRESSED_ENABLED_STATE_SET);
             ripple.setHotspot(calculateCenterX(), calculateCenterY());
             ripple.setVisible(true, true);
         }
@@ -307,12 +672,15 @@ public class FloatingActionButton extends ImageButton {
 
     @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     void onActionUp() {
-        if (mBackgroundDrawable instanceof StateListDrawable) {
+        if (mLeanRendering) {
+            mLeanPressed = false;
+            invalidate();
+        } else if (mBackgroundDrawable instanceof StateListDrawable) {
             StateListDrawable drawable = (StateListDrawable) mBackgroundDrawable;
-            drawable.setState(new int[] {});
+            drawable.setState(EMPTY_STATE_SET);
         } else if (Util.hasLollipop()) {
             RippleDrawable ripple = (RippleDrawable) mBackgroundDrawable;
-            ripple.setState(new int[] {});
+            ripple.setState(EMPTY_STATE_SET);
             ripple.setHotspot(calculateCenterX(), calculateCenterY());
             ripple.setVisible(true, true);
         }
@@ -322,93 +690,67 @@ public class FloatingActionButton extends ImageButton {
     public boolean onTouchEvent(MotionEvent event) {
         if (mClickListener == null) return false;
 
-        Label label = (Label) getTag(R.id.fab_label);
-        int action = event.getAction();
-        switch (action) {
-            case MotionEvent.ACTION_UP:
-                if (label != null) {
-                    label.onActionUp();
+        if (mPressTracker == null) {
+            mPressTracker = new PressTracker(getContext(), new PressTracker.Callback() {
+                @Override
+                public boolean onPress() {
+                    if (mLabel != null) {
+                        mLabel.onActionDown();
+                    }
+                    onActionDown();
+                    return true;
                 }
-                break;
-        }
-
-        mGestureDetector.onTouchEvent(event);
-        return super.onTouchEvent(event);
-    }
-
-    GestureDetector mGestureDetector = new GestureDetector(getContext(), new GestureDetector.SimpleOnGestureListener() {
-
-        @Override
-        public boolean onDown(MotionEvent e) {
-            Label label = (Label) getTag(R.id.fab_label);
-            if (label != null) {
-                label.onActionDown();
-            }
-            onActionDown();
-            return super.onDown(e);
-        }
-
-        @Override
-        public boolean onSingleTapUp(MotionEvent e) {
-            Label label = (Label) getTag(R.id.fab_label);
-            if (label != null) {
-                label.onActionUp();
-            }
-            onActionUp();
-            return super.onSingleTapUp(e);
-        }
-    });
-
-    private class CircleDrawable extends ShapeDrawable {
-
-        private int circleInsetHorizontal;
-        private int circleInsetVertical;
-
-        private CircleDrawable() {
-        }
 
-        private CircleDrawable(Shape s) {
-            super(s);
-            circleInsetHorizontal = hasShadow() ? mShadowRadius + Math.abs(mShadowXOffset) : 0;
-            circleInsetVertical = hasShadow() ? mShadowRadius + Math.abs(mShadowYOffset) : 0;
+                @Override
+                public void onRelease(boolean tap) {
+                    if (mLabel != null) {
+                        mLabel.onActionUp();
+                    }
+                    onActionUp();
+                }
+            });
         }
 
-        @Override
-        public void draw(Canvas canvas) {
-            setBounds(circleInsetHorizontal, circleInsetVertical, calculateMeasuredWidth()
-                    - circleInsetHorizontal, calculateMeasuredHeight() - circleInsetVertical);
-            super.draw(canvas);
-        }
+        mPressTracker.onTouchEvent(event);
+        return super.onTouchEvent(event);
     }
 
     private class Shadow extends Drawable {
 
-        private Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        private Paint mErase = new Paint(Paint.ANTI_ALIAS_FLAG);
-        private float mRadius;
+        private Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        private Bitmap mBitmap;
+        private float mLeft;
+        private float mTop;
 
         private Shadow() {
             this.init();
         }
 
         private void init() {
-            setLayerType(LAYER_TYPE_SOFTWARE, null);
-            mPaint.setStyle(Paint.Style.FILL);
-            mPaint.setColor(mColorNormal);
-
-            mErase.setXfermode(PORTER_DUFF_CLEAR);
+            mPaint.setColor(mShadowColor);
 
             if (!isInEditMode()) {
-                mPaint.setShadowLayer(mShadowRadius, mShadowXOffset, mShadowYOffset, mShadowColor);
+                mBitmap = ShadowCache.getCircleShadow(getCircleSize(), mShadowRadius, mShadowXOffset,
+                        mShadowYOffset, getResources().getDisplayMetrics().density);
             }
+        }
 
-            mRadius = getCircleSize() / 2;
+        private void setColor(int color) {
+            mPaint.setColor(color);
+            invalidateSelf();
+        }
+
+        @Override
+        protected void onBoundsChange(Rect bounds) {
+            mLeft = bounds.left;
+            mTop = bounds.top;
         }
 
         @Override
         public void draw(Canvas canvas) {
-            canvas.drawCircle(calculateCenterX(), calculateCenterY(), mRadius, mPaint);
-            canvas.drawCircle(calculateCenterX(), calculateCenterY(), mRadius, mErase);
+            if (mBitmap != null) {
+                canvas.drawBitmap(mBitmap, mLeft, mTop, mPaint);
+            }
         }
 
         @Override
@@ -429,20 +771,69 @@ public class FloatingActionButton extends ImageButton {
 
     /* ===== API methods ===== */
 
+    /**
+     * Starts a batch of property changes. Setters called before the matching
+     * {@link #commitUpdate()} only record their values, so any number of changes costs a single
+     * background rebuild and at most one layout request. Calls can be nested.
+     */
+    public void beginUpdate() {
+        mUpdateDepth++;
+    }
+
+    /**
+     * Ends a batch of property changes started with {@link #beginUpdate()} and applies them.
+     */
+    public void commitUpdate() {
+        if (mUpdateDepth == 0) {
+            throw new IllegalStateException("commitUpdate() called without a matching beginUpdate()");
+        }
+
+        if (--mUpdateDepth == 0) {
+            boolean layout = mLayoutInvalidated;
+            mLayoutInvalidated = false;
+            if (mBackgroundInvalidated) {
+                mBackgroundInvalidated = false;
+                invalidateBackground(layout);
+            }
+        }
+    }
+
     @Override
     public void setImageDrawable(Drawable drawable) {
         if (mIcon != drawable) {
+            releaseIcon();
             mIcon = drawable;
-            updateBackground();
+            mIconResId = 0;
+            invalidateBackground(false);
         }
     }
 
+    /**
+     * Sets the icon from a drawable resource. Icons are scaled down to the 24dp icon size, cached
+     * and shared between buttons, and setting the same resource again does not rebuild the
+     * background.
+     */
     @Override
     public void setImageResource(int resId) {
-        Drawable drawable = getResources().getDrawable(resId);
-        if (mIcon != drawable) {
-            mIcon = drawable;
-            updateBackground();
+        if (mIconResId != resId || mIcon == null) {
+            mIconResId = resId;
+            releaseIcon();
+            mIcon = IconCache.getIcon(getResources(), resId, mIconSize);
+            invalidateBackground(false);
+        }
+    }
+
+    /**
+     * Reloads an icon set from a resource, which may resolve to another drawable in the new
+     * configuration.
+     */
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        if (mIconResId != 0) {
+            releaseIcon();
+            mIcon = IconCache.getIcon(getResources(), mIconResId, mIconSize);
+            invalidateBackground(false);
         }
     }
 
@@ -450,9 +841,8 @@ public class FloatingActionButton extends ImageButton {
     public void setOnClickListener(final OnClickListener l) {
         super.setOnClickListener(l);
         mClickListener = l;
-        View label = (View) getTag(R.id.fab_label);
-        if (label != null) {
-            label.setOnClickListener(new OnClickListener() {
+        if (mLabel != null) {
+            mLabel.setOnClickListener(new OnClickListener() {
                 @Override
                 public void onClick(View v) {
                     if (mClickListener != null) {
@@ -475,7 +865,7 @@ public class FloatingActionButton extends ImageButton {
 
         if (mFabSize != size) {
             mFabSize = size;
-            updateBackground();
+            invalidateBackground(true);
         }
     }
 
@@ -486,7 +876,7 @@ public class FloatingActionButton extends ImageButton {
     public void setColorNormal(int color) {
         if (mColorNormal != color) {
             mColorNormal = color;
-            updateBackground();
+            updateCircleColor(mNormalCircle, color);
         }
     }
 
@@ -501,7 +891,7 @@ public class FloatingActionButton extends ImageButton {
     public void setColorPressed(int color) {
         if (color != mColorPressed) {
             mColorPressed = color;
-            updateBackground();
+            updateCircleColor(mPressedCircle, color);
         }
     }
 
@@ -513,10 +903,13 @@ public class FloatingActionButton extends ImageButton {
         return mColorPressed;
     }
 
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     public void setColorRipple(int color) {
         if (color != mColorRipple) {
             mColorRipple = color;
-            updateBackground();
+            if (Util.hasLollipop() && mBackgroundDrawable instanceof RippleDrawable) {
+                ((RippleDrawable) mBackgroundDrawable).setColor(BackgroundCache.getColorStateList(color));
+            }
         }
     }
 
@@ -528,10 +921,51 @@ public class FloatingActionButton extends ImageButton {
         return mColorRipple;
     }
 
+    /**
+     * Sets whether the <b>FloatingActionButton</b> draws its shadow, circle, pressed color and icon
+     * itself in a single {@link #onDraw(Canvas)} pass instead of through a layered background
+     * drawable. Lean rendering has no ripple effect: the pressed color is used on every API level.
+     *
+     * @param lean true to enable lean rendering
+     */
+    public void setLeanRendering(boolean lean) {
+        if (mLeanRendering != lean) {
+            mLeanRendering = lean;
+            mLeanPressed = false;
+            invalidateBackground(false);
+        }
+    }
+
+    public boolean isLeanRendering() {
+        return mLeanRendering;
+    }
+
+    /**
+     * Sets whether {@link #show(boolean)} and {@link #hide(boolean)} animate the button with
+     * {@link android.view.ViewPropertyAnimator} instead of the show and hide {@link Animation}s.
+     * Property animations keep running smoothly on API 21+ while the UI thread is busy.
+     *
+     * @param use true to use property animations
+     */
+    public void setUsePropertyAnimations(boolean use) {
+        if (mUsePropertyAnimations != use) {
+            boolean hiding = mPropertyHiding;
+            cancelPropertyAnimation();
+            if (hiding) {
+                setVisibility(INVISIBLE);
+            }
+            mUsePropertyAnimations = use;
+        }
+    }
+
+    public boolean isUsingPropertyAnimations() {
+        return mUsePropertyAnimations;
+    }
+
     public void setShowShadow(boolean show) {
         if (mShowShadow != show) {
             mShowShadow = show;
-            updateBackground();
+            invalidateBackground(true);
         }
     }
 
@@ -548,8 +982,7 @@ public class FloatingActionButton extends ImageButton {
         int shadowRadius = getResources().getDimensionPixelSize(dimenResId);
         if (mShadowRadius != shadowRadius) {
             mShadowRadius = shadowRadius;
-            requestLayout();
-            updateBackground();
+            invalidateBackground(true);
         }
     }
 
@@ -562,9 +995,11 @@ public class FloatingActionButton extends ImageButton {
      * @param shadowRadiusDp shadow radius specified in density-independent (dp) pixels
      */
     public void setShadowRadius(float shadowRadiusDp) {
-        mShadowRadius = Util.dpToPx(getContext(), shadowRadiusDp);
-        requestLayout();
-        updateBackground();
+        int shadowRadius = Util.dpToPx(getContext(), shadowRadiusDp);
+        if (mShadowRadius != shadowRadius) {
+            mShadowRadius = shadowRadius;
+            invalidateBackground(true);
+        }
     }
 
     public int getShadowRadius() {
@@ -580,8 +1015,7 @@ public class FloatingActionButton extends ImageButton {
         int shadowXOffset = getResources().getDimensionPixelSize(dimenResId);
         if (mShadowXOffset != shadowXOffset) {
             mShadowXOffset = shadowXOffset;
-            requestLayout();
-            updateBackground();
+            invalidateBackground(true);
         }
     }
 
@@ -594,9 +1028,11 @@ public class FloatingActionButton extends ImageButton {
      * @param shadowXOffsetDp shadow radius specified in density-independent (dp) pixels
      */
     public void setShadowXOffset(float shadowXOffsetDp) {
-        mShadowXOffset = Util.dpToPx(getContext(), shadowXOffsetDp);
-        requestLayout();
-        updateBackground();
+        int shadowXOffset = Util.dpToPx(getContext(), shadowXOffsetDp);
+        if (mShadowXOffset != shadowXOffset) {
+            mShadowXOffset = shadowXOffset;
+            invalidateBackground(true);
+        }
     }
 
     public int getShadowXOffset() {
@@ -612,8 +1048,7 @@ public class FloatingActionButton extends ImageButton {
         int shadowYOffset = getResources().getDimensionPixelSize(dimenResId);
         if (mShadowYOffset != shadowYOffset) {
             mShadowYOffset = shadowYOffset;
-            requestLayout();
-            updateBackground();
+            invalidateBackground(true);
         }
     }
 
@@ -626,9 +1061,11 @@ public class FloatingActionButton extends ImageButton {
      * @param shadowYOffsetDp shadow radius specified in density-independent (dp) pixels
      */
     public void setShadowYOffset(float shadowYOffsetDp) {
-        mShadowYOffset = Util.dpToPx(getContext(), shadowYOffsetDp);
-        requestLayout();
-        updateBackground();
+        int shadowYOffset = Util.dpToPx(getContext(), shadowYOffsetDp);
+        if (mShadowYOffset != shadowYOffset) {
+            mShadowYOffset = shadowYOffset;
+            invalidateBackground(true);
+        }
     }
 
     public int getShadowYOffset() {
@@ -636,17 +1073,17 @@ public class FloatingActionButton extends ImageButton {
     }
 
     public void setShadowColorResource(int colorResId) {
-        int shadowColor = getResources().getColor(colorResId);
-        if (mShadowColor != shadowColor) {
-            mShadowColor = shadowColor;
-            updateBackground();
-        }
+        setShadowColor(getResources().getColor(colorResId));
     }
 
     public void setShadowColor(int color) {
         if (mShadowColor != color) {
             mShadowColor = color;
-            updateBackground();
+            if (mShadow != null) {
+                mShadow.setColor(color);
+            } else if (mLeanRendering) {
+                invalidate();
+            }
         }
     }
 
@@ -660,7 +1097,7 @@ public class FloatingActionButton extends ImageButton {
      * @return true if <b>FloatingActionButton</b> is hidden, false otherwise
      */
     public boolean isHidden() {
-        return getVisibility() == INVISIBLE;
+        return getVisibility() == INVISIBLE || mPropertyHiding;
     }
 
     /**
@@ -670,7 +1107,8 @@ public class FloatingActionButton extends ImageButton {
      */
     public void show(int showAnimation) {
         if (isHidden()) {
-            startAnimation(AnimationUtils.loadAnimation(getContext(), showAnimation));
+            cancelPropertyAnimation();
+            startAnimation(getAnimation(showAnimation));
             setVisibility(VISIBLE);
         }
     }
@@ -684,6 +1122,8 @@ public class FloatingActionButton extends ImageButton {
         if (isHidden()) {
             if (animate) {
                 playShowAnimation();
+            } else {
+                cancelPropertyAnimation();
             }
             setVisibility(VISIBLE);
         }
@@ -696,7 +1136,8 @@ public class FloatingActionButton extends ImageButton {
      */
     public void hide(int hideAnimation) {
         if (!isHidden()) {
-            startAnimation(AnimationUtils.loadAnimation(getContext(), hideAnimation));
+            cancelPropertyAnimation();
+            startAnimation(getAnimation(hideAnimation));
             setVisibility(INVISIBLE);
         }
     }
@@ -710,8 +1151,13 @@ public class FloatingActionButton extends ImageButton {
         if (!isHidden()) {
             if (animate) {
                 playHideAnimation();
+            } else {
+                cancelPropertyAnimation();
+            }
+
+            if (!mPropertyHiding) {
+                setVisibility(INVISIBLE);
             }
-            setVisibility(INVISIBLE);
         }
     }
 
@@ -737,6 +1183,11 @@ public class FloatingActionButton extends ImageButton {
 
     public void setShowAnimation(Animation showAnimation) {
         mShowAnimation = showAnimation;
+        float overshoot = Util.getScaleOvershoot(showAnimation);
+        if (mShowOvershoot != overshoot) {
+            mShowOvershoot = overshoot;
+            requestLayout();
+        }
     }
 
     public void setHideAnimation(Animation hideAnimation) {
@@ -765,7 +1216,7 @@ public class FloatingActionButton extends ImageButton {
             super.setElevation(elevation);
             mUsingElevation = true;
             mShowShadow = false;
-            updateBackground();
+            invalidateBackground(false);
         }
     }
 
@@ -786,7 +1237,7 @@ public class FloatingActionButton extends ImageButton {
             super.setElevation(elevation);
             mUsingElevationCompat = true;
             mShowShadow = false;
-            updateBackground();
+            invalidateBackground(false);
 
             ViewGroup.LayoutParams layoutParams = getLayoutParams();
             if (layoutParams != null) {
@@ -794,41 +1245,31 @@ public class FloatingActionButton extends ImageButton {
             }
         } else {
             mShowShadow = true;
-            updateBackground();
+            invalidateBackground(false);
         }
     }
 
     /**
      * Attaches the fab to a RecyclerView to toggle hide/show animation on scroll.
-     * The slide up/down animation is used.
+     * The slide up/down animation is used. Scroll listeners already added to the RecyclerView
+     * keep receiving their callbacks. Replaces any view the fab was attached to before.
      *
      * @param recyclerView The RecyclerView to attach with
      */
     public void attachToRecyclerView(RecyclerView recyclerView) {
-        attachToRecyclerView(recyclerView, 4);
+        releaseOwnedScrollSource();
+        setOwnedScrollSource(ScrollSources.forRecyclerView(recyclerView), recyclerView);
     }
 
     /**
-     * Attaches the fab to a RecyclerView to toggle hide/show animation on scroll.
-     * The slide up/down animation is used
+     * Stops hiding and showing the fab when the RecyclerView is scrolled.
      *
-     * @param recyclerView The RecyclerView to attach with
-     * @param scrollOffset
-     */
-    private void attachToRecyclerView(RecyclerView recyclerView, final int scrollOffset) {
-        recyclerView.setOnScrollListener(new RecyclerView.OnScrollListener() {
-            @Override
-            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-                super.onScrolled(recyclerView, dx, dy);
-                if (Math.abs(dy) > scrollOffset) {
-                    if (dy > 0) {
-                        hide(R.anim.fab_hide_to_bottom);
-                    } else {
-                        show(R.anim.fab_show_from_bottom);
-                    }
-                }
-            }
-        });
+     * @param recyclerView The RecyclerView the fab was attached to
+     */
+    public void detachFromRecyclerView(RecyclerView recyclerView) {
+        if (mOwnedScrollView == recyclerView) {
+            releaseOwnedScrollSource();
+        }
     }
 
     /**
@@ -838,22 +1279,101 @@ public class FloatingActionButton extends ImageButton {
      * @param listView The AbsListView to attach with
      */
     public void attachToListView(AbsListView listView) {
-        listView.setOnScrollListener(new OnScrollListener() {
-            public int mPreviousVisibleItem;
+        attachToListView(listView, null);
+    }
 
-            @Override
-            public void onScrollStateChanged(AbsListView view, int scrollState) {
-            }
+    /**
+     * Attaches the fab to a AbsListView to toggle hide/show animation on scroll.
+     * The slide up/down animation is used. An AbsListView holds a single scroll listener, so the
+     * one the app uses has to be passed here to keep receiving its callbacks. Replaces any view
+     * the fab was attached to before.
+     *
+     * @param listView The AbsListView to attach with
+     * @param listener The app's own scroll listener, or null
+     */
+    public void attachToListView(AbsListView listView, OnScrollListener listener) {
+        releaseOwnedScrollSource();
+        setOwnedScrollSource(ScrollSources.forListView(listView, listener), listView);
+    }
 
-            @Override
-            public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
-                if (firstVisibleItem > mPreviousVisibleItem) {
-                    hide(R.anim.fab_hide_to_bottom);
-                } else if (firstVisibleItem < mPreviousVisibleItem) {
-                    show(R.anim.fab_show_from_bottom);
-                }
-                mPreviousVisibleItem = firstVisibleItem;
+    /**
+     * Stops hiding and showing the fab when the AbsListView is scrolled, giving the list back the
+     * scroll listener passed to {@link #attachToListView(AbsListView, OnScrollListener)}.
+     *
+     * @param listView The AbsListView the fab was attached to
+     */
+    public void detachFromListView(AbsListView listView) {
+        if (mOwnedScrollView == listView) {
+            releaseOwnedScrollSource();
+        }
+    }
+
+    /**
+     * Makes the fab hide and show as {@code source} reports scrolling, instead of following the
+     * source it had before. Switching only swaps the callback of the two sources, so a fab can
+     * follow the current page of a ViewPager without registering any listener on page changes.
+     *
+     * @param source the source to follow, or null to stop following any
+     * @see ScrollSources
+     */
+    public void setScrollSource(ScrollSource source) {
+        if (mScrollSource == source) return;
+
+        if (mScrollSource != null) {
+            mScrollSource.setCallback(null);
+        }
+        mScrollSource = source;
+        if (mScrollHideEngine != null) {
+            mScrollHideEngine.reset();
+        }
+        if (source != null) {
+            source.setCallback(getScrollHideEngine());
+        }
+    }
+
+    public ScrollSource getScrollSource() {
+        return mScrollSource;
+    }
+
+    private void setOwnedScrollSource(ScrollSource source, View view) {
+        mOwnedScrollSource = source;
+        mOwnedScrollView = view;
+        setScrollSource(source);
+    }
+
+    /**
+     * Releases the source created by the last attachTo call, if the fab is still attached.
+     */
+    private void releaseOwnedScrollSource() {
+        if (mOwnedScrollSource != null) {
+            if (mScrollSource == mOwnedScrollSource) {
+                setScrollSource(null);
             }
-        });
+            mOwnedScrollSource.release();
+            mOwnedScrollSource = null;
+            mOwnedScrollView = null;
+        }
+    }
+
+    private ScrollHideEngine getScrollHideEngine() {
+        if (mScrollHideEngine == null) {
+            mScrollHideEngine = new ScrollHideEngine(this);
+        }
+        return mScrollHideEngine;
+    }
+
+    /**
+     * Sets whether scrolling the attached view or {@link ScrollSource} moves the fab along with
+     * the content instead of playing the hide and show animations. When the scroll stops, the fab
+     * settles either fully shown or fully below its parent.
+     *
+     * @param translate true to move the fab with the content
+     */
+    public void setTranslateOnScroll(boolean translate) {
+        getScrollHideEngine().setTranslating(translate);
+    }
+
+    public boolean isTranslateOnScroll() {
+        return mScrollHideEngine != null && mScrollHideEngine.isTranslating();
     }
 }
@@ -1,17 +1,19 @@
 package com.github.clans.fab;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Color;
+import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
-import android.os.Handler;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.TypedValue;
 import android.view.ContextThemeWrapper;
-import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
@@ -19,6 +21,7 @@ import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
 import android.view.animation.AnticipateInterpolator;
 import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
 import android.view.animation.OvershootInterpolator;
 import android.widget.ImageView;
 
@@ -28,8 +31,17 @@ public class FloatingActionMenu extends ViewGroup {
     private static final float CLOSED_PLUS_ROTATION = 0f;
     private static final float OPENED_PLUS_ROTATION = -90f - 45f;
 
-    private AnimatorSet mOpenAnimatorSet = new AnimatorSet();
-    private AnimatorSet mCloseAnimatorSet = new AnimatorSet();
+    private static final int STATE_CLOSED = 0;
+    private static final int STATE_OPENING = 1;
+    private static final int STATE_OPEN = 2;
+    private static final int STATE_CLOSING = 3;
+
+    private static final int BUTTON_SHOWN = 0;
+    private static final int BUTTON_HIDING = 1;
+    private static final int BUTTON_HIDDEN = 2;
+    private static final int BUTTON_SHOWING = 3;
+
+    private ObjectAnimator mIconAnimator;
     private AnimatorSet mIconToggleSet;
 
     private int mButtonSpacing = Util.dpToPx(getContext(), 0f);
@@ -38,8 +50,10 @@ public class FloatingActionMenu extends ViewGroup {
     private int mLabelsMargin = Util.dpToPx(getContext(), 0f);
     private int mLabelsVerticalOffset = Util.dpToPx(getContext(), 0f);
     private int mButtonsCount;
-    private boolean mMenuOpened;
-    private Handler mUiHandler = new Handler();
+    private int mMenuState = STATE_CLOSED;
+    private int mMenuButtonState = BUTTON_SHOWN;
+    private boolean mMenuButtonHidePending;
+    private boolean mMenuButtonHideAnimated;
     private int mLabelsShowAnimation;
     private int mLabelsHideAnimation;
     private int mLabelsPaddingTop = Util.dpToPx(getContext(), 4f);
@@ -65,6 +79,7 @@ public class FloatingActionMenu extends ViewGroup {
     private int mAnimationDelayPerItem;
     private Interpolator mOpenInterpolator;
     private Interpolator mCloseInterpolator;
+    private Interpolator mReversedCloseInterpolator;
     private boolean mIsAnimated = true;
     private boolean mLabelsSingleLine;
     private int mLabelsEllipsize;
@@ -75,8 +90,20 @@ public class FloatingActionMenu extends ViewGroup {
     private ImageView mImageToggle;
     private Animation mMenuButtonShowAnimation;
     private Animation mMenuButtonHideAnimation;
-    private boolean mIsMenuButtonAnimationRunning;
     private boolean mIsSetClosedOnTouchOutside;
+    private PressTracker mPressTracker;
+    private FloatingActionButton[] mItems = new FloatingActionButton[0];
+    private Rect[] mItemHitRects = new Rect[0];
+    private int mItemCount;
+    private FloatingActionButton mTouchedItem;
+    private int mOvershootTop;
+    private int mOvershootLeft;
+    private ValueAnimator mItemsAnimator;
+    private FloatingActionButton[] mAnimatingItems = new FloatingActionButton[0];
+    private int mAnimatingItemCount;
+    private int mShownItemCount;
+    private boolean mItemsOpening;
+    private boolean mAnimateItems;
 
     private OnMenuToggleListener mToggleListener;
 
@@ -141,6 +168,7 @@ public class FloatingActionMenu extends ViewGroup {
 
         mOpenInterpolator = new OvershootInterpolator();
         mCloseInterpolator = new AnticipateInterpolator();
+        mReversedCloseInterpolator = new ReversedInterpolator(mCloseInterpolator);
 
         initMenuButtonAnimations();
         createMenuButton();
@@ -189,17 +217,26 @@ public class FloatingActionMenu extends ViewGroup {
     }
 
     private void createDefaultIconAnimation() {
-        ObjectAnimator collapseAnimator = ObjectAnimator.ofFloat(mImageToggle, "rotation", OPENED_PLUS_ROTATION, CLOSED_PLUS_ROTATION);
-        ObjectAnimator expandAnimator = ObjectAnimator.ofFloat(mImageToggle, "rotation", CLOSED_PLUS_ROTATION, OPENED_PLUS_ROTATION);
-
-        mOpenAnimatorSet.play(expandAnimator);
-        mCloseAnimatorSet.play(collapseAnimator);
-
-        mOpenAnimatorSet.setInterpolator(mOpenInterpolator);
-        mCloseAnimatorSet.setInterpolator(mCloseInterpolator);
+        mIconAnimator = ObjectAnimator.ofFloat(mImageToggle, "rotation", CLOSED_PLUS_ROTATION, OPENED_PLUS_ROTATION);
+        mIconAnimator.setDuration(ANIMATION_DURATION);
+    }
 
-        mOpenAnimatorSet.setDuration(ANIMATION_DURATION);
-        mCloseAnimatorSet.setDuration(ANIMATION_DURATION);
+    /**
+     * Rotates the icon with a single animator that opens forward and closes in reverse, so a
+     * toggle in the middle of a rotation turns back from the current angle.
+     */
+    private void animateIcon(boolean opening) {
+        if (mIconToggleSet != null) {
+            mIconToggleSet.start();
+        } else if (mIconAnimator.isRunning()) {
+            mIconAnimator.reverse();
+        } else if (opening) {
+            mIconAnimator.setInterpolator(mOpenInterpolator);
+            mIconAnimator.start();
+        } else {
+            mIconAnimator.setInterpolator(mReversedCloseInterpolator);
+            mIconAnimator.reverse();
+        }
     }
 
     @Override
@@ -229,7 +266,7 @@ public class FloatingActionMenu extends ViewGroup {
             usedWidth += child.getMeasuredWidth();
             height += child.getMeasuredHeight();
 
-            Label label = (Label) child.getTag(R.id.fab_label);
+            Label label = ((FloatingActionButton) child).getLabelView();
             if (label != null) {
                 int labelOffset = (mMaxButtonWidth - child.getMeasuredWidth()) / 2;
                 int labelUsedWidth = child.getMeasuredWidth() + label.calculateShadowWidth() + mLabelsMargin + labelOffset;
@@ -239,10 +276,13 @@ public class FloatingActionMenu extends ViewGroup {
             }
         }
 
-        width = Math.max(mMaxButtonWidth, maxLabelWidth + mLabelsMargin) + getPaddingLeft() + getPaddingRight();
+        calculateOvershoot();
+
+        width = Math.max(mMaxButtonWidth + mOvershootLeft, maxLabelWidth + mLabelsMargin)
+                + getPaddingLeft() + getPaddingRight();
 
         height += mButtonSpacing * (getChildCount() - 1) + getPaddingTop() + getPaddingBottom();
-        height = adjustForOvershoot(height);
+        height += mOvershootTop;
 
 
         if (getLayoutParams().width == LayoutParams.MATCH_PARENT) {
@@ -272,6 +312,8 @@ public class FloatingActionMenu extends ViewGroup {
                 imageTop + mImageToggle.getMeasuredHeight());
 
         int nextY = menuButtonTop - mButtonSpacing;
+        ensureItemCapacity(mButtonsCount);
+        mItemCount = 0;
 
         for (int i = mButtonsCount - 1; i >= 0; i--) {
             View child = getChildAt(i);
@@ -287,11 +329,11 @@ public class FloatingActionMenu extends ViewGroup {
             fab.layout(childX, childY, childX + fab.getMeasuredWidth(),
                     childY + fab.getMeasuredHeight());
 
-            if (!mMenuOpened) {
+            if (!isOpened()) {
                 fab.hide(false);
             }
 
-            View label = (View) fab.getTag(R.id.fab_label);
+            View label = fab.getLabelView();
             if (label != null) {
                 int labelsOffset = fab.getMeasuredWidth() / 2 + mLabelsMargin;
                 int labelXNearButton = buttonsHorizontalCenter - labelsOffset;
@@ -303,17 +345,93 @@ public class FloatingActionMenu extends ViewGroup {
                 label.layout(labelXAwayFromButton, labelTop,
                         labelXNearButton, labelTop + label.getMeasuredHeight());
 
-                if (!mMenuOpened) {
+                if (!isOpened()) {
                     label.setVisibility(INVISIBLE);
                 }
             }
 
+            addItemHitRect(fab, label);
             nextY = childY - mButtonSpacing;
         }
     }
 
-    private int adjustForOvershoot(int dimension) {
-        return dimension * 12 / 10;
+    private void ensureItemCapacity(int capacity) {
+        if (mItemHitRects.length < capacity) {
+            mItems = new FloatingActionButton[capacity];
+            mItemHitRects = new Rect[capacity];
+            for (int i = 0; i < capacity; i++) {
+                mItemHitRects[i] = new Rect();
+            }
+        }
+    }
+
+    /**
+     * Records the area covered by a menu item and its label, so that a touch anywhere on the row
+     * presses both of them.
+     */
+    private void addItemHitRect(FloatingActionButton fab, View label) {
+        Rect hitRect = mItemHitRects[mItemCount];
+        hitRect.set(fab.getLeft(), fab.getTop(), fab.getRight(), fab.getBottom());
+        if (label != null) {
+            hitRect.union(label.getLeft(), label.getTop(), label.getRight(), label.getBottom());
+        }
+        mItems[mItemCount++] = fab;
+    }
+
+    private FloatingActionButton findItemAt(int x, int y) {
+        for (int i = 0; i < mItemCount; i++) {
+            FloatingActionButton fab = mItems[i];
+            if (mItemHitRects[i].contains(x, y) && fab.getVisibility() == VISIBLE
+                    && fab.getOnClickListener() != null) {
+                return fab;
+            }
+        }
+        return null;
+    }
+
+    private static void setItemPressed(FloatingActionButton fab, boolean pressed) {
+        Label label = fab.getLabelView();
+        if (pressed) {
+            fab.onActionDown();
+            if (label != null) {
+                label.onActionDown();
+            }
+        } else {
+            fab.onActionUp();
+            if (label != null) {
+                label.onActionUp();
+            }
+        }
+    }
+
+    /**
+     * Works out how far the buttons grow past their measured size while their show animations
+     * overshoot, in the directions that do not move the menu button: above the top item and to
+     * the left of the buttons. Like a standalone button, the menu button keeps its position and
+     * may draw its own overshoot outside the menu.
+     */
+    private void calculateOvershoot() {
+        mOvershootTop = 0;
+        mOvershootLeft = 0;
+        boolean topItemFound = false;
+
+        for (int i = 0; i < mButtonsCount; i++) {
+            View child = getChildAt(i);
+
+            if (!(child instanceof FloatingActionButton) || child.getVisibility() == GONE) continue;
+
+            FloatingActionButton fab = (FloatingActionButton) child;
+            float overshoot = fab.getShowOvershoot();
+            int fabWidth = fab.getMeasuredWidth();
+            if (fab != mMenuButton && !topItemFound) {
+                mOvershootTop = (int) Math.ceil(overshoot * fab.getMeasuredHeight() / 2);
+                topItemFound = true;
+            }
+
+            int fabOvershootLeft = (int) Math.ceil(overshoot * fabWidth / 2
+                    - (mMaxButtonWidth - fabWidth) / 2f);
+            mOvershootLeft = Math.max(mOvershootLeft, fabOvershootLeft);
+        }
     }
 
     @Override
@@ -335,14 +453,14 @@ public class FloatingActionMenu extends ViewGroup {
             final FloatingActionButton fab = (FloatingActionButton) getChildAt(i);
             String text = fab.getLabelText();
 
-            if (fab == mMenuButton || TextUtils.isEmpty(text) || fab.getTag(R.id.fab_label) != null) {
+            if (fab == mMenuButton || TextUtils.isEmpty(text) || fab.getLabelView() != null) {
                 continue;
             }
 
             final Label label = new Label(context);
             label.setFab(fab);
-            label.setShowAnimation(AnimationUtils.loadAnimation(getContext(), mLabelsShowAnimation));
-            label.setHideAnimation(AnimationUtils.loadAnimation(getContext(), mLabelsHideAnimation));
+            label.setShowAnimation(AnimationCache.getAnimation(getContext(), mLabelsShowAnimation));
+            label.setHideAnimation(AnimationCache.getAnimation(getContext(), mLabelsHideAnimation));
 
             if (mLabelsStyle > 0) {
                 label.setTextAppearance(getContext(), mLabelsStyle);
@@ -383,7 +501,7 @@ public class FloatingActionMenu extends ViewGroup {
             label.setText(text);
 
             addView(label);
-            fab.setTag(R.id.fab_label, label);
+            fab.setLabelView(label);
         }
     }
 
@@ -426,54 +544,231 @@ public class FloatingActionMenu extends ViewGroup {
     }
 
     private void hideMenuButtonWithImage(boolean animate) {
-        if (!isMenuButtonHidden()) {
-            mMenuButton.hide(animate);
-            if (animate) {
-                mImageToggle.startAnimation(mMenuButtonHideAnimation);
-            }
-            mImageToggle.setVisibility(INVISIBLE);
-            mIsMenuButtonAnimationRunning = false;
+        mMenuButtonState = BUTTON_HIDING;
+        mMenuButton.hide(animate);
+        if (animate) {
+            mImageToggle.startAnimation(mMenuButtonHideAnimation);
         }
+        mImageToggle.setVisibility(INVISIBLE);
+        finishMenuButtonTransition(animate ? mMenuButtonHideAnimation.computeDurationHint() : 0);
     }
 
     private void showMenuButtonWithImage(boolean animate) {
-        if (isMenuButtonHidden()) {
-            mMenuButton.show(animate);
-            if (animate) {
-                mImageToggle.startAnimation(mMenuButtonShowAnimation);
+        mMenuButtonState = BUTTON_SHOWING;
+        mMenuButton.show(animate);
+        if (animate) {
+            mImageToggle.startAnimation(mMenuButtonShowAnimation);
+        }
+        mImageToggle.setVisibility(VISIBLE);
+        finishMenuButtonTransition(animate ? mMenuButtonShowAnimation.computeDurationHint() : 0);
+    }
+
+    /**
+     * Settles the menu button state once its show or hide animation is over. Only one
+     * transition is ever scheduled: starting another one replaces it.
+     */
+    private void finishMenuButtonTransition(long delay) {
+        removeCallbacks(mMenuButtonTransitionEnd);
+        if (delay > 0) {
+            postDelayed(mMenuButtonTransitionEnd, delay);
+        } else {
+            mMenuButtonTransitionEnd.run();
+        }
+    }
+
+    private final Runnable mMenuButtonTransitionEnd = new Runnable() {
+        @Override
+        public void run() {
+            if (mMenuButtonState == BUTTON_HIDING) {
+                mMenuButtonState = BUTTON_HIDDEN;
+            } else if (mMenuButtonState == BUTTON_SHOWING) {
+                mMenuButtonState = BUTTON_SHOWN;
+            }
+        }
+    };
+
+    /**
+     * Called when the items have finished showing or hiding, or straight away when that is not
+     * animated. Runs the menu button hide that was waiting for the menu to close.
+     */
+    private void onItemsAnimationEnd() {
+        if (mMenuState == STATE_OPENING) {
+            mMenuState = STATE_OPEN;
+        } else if (mMenuState == STATE_CLOSING) {
+            mMenuState = STATE_CLOSED;
+            if (mMenuButtonHidePending) {
+                mMenuButtonHidePending = false;
+                hideMenuButtonWithImage(mMenuButtonHideAnimated);
             }
-            mImageToggle.setVisibility(VISIBLE);
         }
     }
 
+    /**
+     * While the menu is open, touches on item rows are handled here instead of being dispatched
+     * to the buttons and labels themselves.
+     */
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent event) {
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            mTouchedItem = isOpened() ? findItemAt((int) event.getX(), (int) event.getY()) : null;
+            return mTouchedItem != null;
+        }
+        return false;
+    }
+
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        if (mIsSetClosedOnTouchOutside) {
-            return mGestureDetector.onTouchEvent(event);
+        if (mTouchedItem != null || mIsSetClosedOnTouchOutside) {
+            if (mPressTracker == null) {
+                mPressTracker = new PressTracker(getContext(), new PressTracker.Callback() {
+                    @Override
+                    public boolean onPress() {
+                        if (mTouchedItem != null) {
+                            setItemPressed(mTouchedItem, true);
+                            return true;
+                        }
+                        return mIsSetClosedOnTouchOutside && isOpened();
+                    }
+
+                    @Override
+                    public void onRelease(boolean tap) {
+                        FloatingActionButton item = mTouchedItem;
+                        mTouchedItem = null;
+                        if (item != null) {
+                            setItemPressed(item, false);
+                            if (tap) {
+                                item.performClick();
+                            }
+                        } else if (tap) {
+                            close(mIsAnimated);
+                        }
+                    }
+                });
+            }
+            return mPressTracker.onTouchEvent(event);
         } else {
             return super.onTouchEvent(event);
         }
     }
 
-    GestureDetector mGestureDetector = new GestureDetector(getContext(),
-            new GestureDetector.SimpleOnGestureListener() {
+    /**
+     * Shows the menu items bottom first, {@link #mAnimationDelayPerItem} apart, on a timeline that
+     * closing plays in reverse. Toggling while the timeline runs reverses it from its current
+     * position instead of starting over.
+     */
+    private void animateItems(boolean opening, boolean animate) {
+        if (mItemsAnimator == null) {
+            mItemsAnimator = ValueAnimator.ofFloat(0f, 1f);
+            mItemsAnimator.setInterpolator(new LinearInterpolator());
+            mItemsAnimator.addUpdateListener(mItemsUpdateListener);
+            mItemsAnimator.addListener(mItemsListener);
+        }
+
+        mItemsOpening = opening;
+        mAnimateItems = animate;
+
+        if (mItemsAnimator.isRunning()) {
+            if (animate) {
+                mItemsAnimator.reverse();
+                return;
+            }
+            mItemsAnimator.cancel();
+        } else {
+            collectAnimatingItems();
+            mShownItemCount = opening ? 0 : mAnimatingItemCount;
+        }
+
+        if (!animate || mAnimationDelayPerItem <= 0 || mAnimatingItemCount <= 1) {
+            updateShownItems(opening ? mAnimatingItemCount : 0);
+            onItemsAnimationEnd();
+        } else {
+            mItemsAnimator.setDuration((long) mAnimationDelayPerItem * (mAnimatingItemCount - 1));
+            if (opening) {
+                mItemsAnimator.start();
+            } else {
+                mItemsAnimator.reverse();
+            }
+        }
+    }
+
+    /**
+     * Fills {@link #mAnimatingItems} with the visible items, bottom first.
+     */
+    private void collectAnimatingItems() {
+        int childCount = getChildCount();
+        if (mAnimatingItems.length < childCount) {
+            mAnimatingItems = new FloatingActionButton[childCount];
+        }
+
+        mAnimatingItemCount = 0;
+        for (int i = childCount - 1; i >= 0; i--) {
+            View child = getChildAt(i);
+            if (child instanceof FloatingActionButton
+                    && child != mMenuButton && child.getVisibility() != GONE) {
+                mAnimatingItems[mAnimatingItemCount++] = (FloatingActionButton) child;
+            }
+        }
+    }
+
+    private void updateShownItems(int count) {
+        while (mShownItemCount < count) {
+            FloatingActionButton fab = mAnimatingItems[mShownItemCount++];
+            fab.show(mAnimateItems);
+            Label label = fab.getLabelView();
+            if (label != null && label.getVisibility() != VISIBLE) {
+                label.show(mAnimateItems);
+            }
+        }
+
+        while (mShownItemCount > count) {
+            FloatingActionButton fab = mAnimatingItems[--mShownItemCount];
+            fab.hide(mAnimateItems);
+            Label label = fab.getLabelView();
+            if (label != null && label.getVisibility() == VISIBLE) {
+                label.hide(mAnimateItems);
+            }
+        }
+    }
+
+    private final ValueAnimator.AnimatorUpdateListener mItemsUpdateListener =
+            new ValueAnimator.AnimatorUpdateListener() {
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            float fraction = animation.getAnimatedFraction();
+            updateShownItems(fraction <= 0f ? 0
+                    : Math.min(mAnimatingItemCount, (int) (fraction * (mAnimatingItemCount - 1)) + 1));
+        }
+    };
 
+    private final Animator.AnimatorListener mItemsListener = new AnimatorListenerAdapter() {
         @Override
-        public boolean onDown(MotionEvent e) {
-            return mIsSetClosedOnTouchOutside && isOpened();
+        public void onAnimationEnd(Animator animation) {
+            updateShownItems(mItemsOpening ? mAnimatingItemCount : 0);
+            onItemsAnimationEnd();
+        }
+    };
+
+    /**
+     * Plays an interpolator forwards on an animator that runs in reverse.
+     */
+    private static final class ReversedInterpolator implements Interpolator {
+
+        private final Interpolator mInterpolator;
+
+        private ReversedInterpolator(Interpolator interpolator) {
+            mInterpolator = interpolator;
         }
 
         @Override
-        public boolean onSingleTapUp(MotionEvent e) {
-            close(mIsAnimated);
-            return true;
+        public float getInterpolation(float input) {
+            return 1f - mInterpolator.getInterpolation(1f - input);
         }
-    });
+    }
 
     /* ===== API methods ===== */
 
     public boolean isOpened() {
-        return mMenuOpened;
+        return mMenuState == STATE_OPENING || mMenuState == STATE_OPEN;
     }
 
     public void toggle(boolean animate) {
@@ -484,37 +779,17 @@ public class FloatingActionMenu extends ViewGroup {
         }
     }
 
-    public void open(final boolean animate) {
+    public void open(boolean animate) {
         if (!isOpened()) {
             if (mIconAnimated) {
-                if (mIconToggleSet != null) {
-                    mIconToggleSet.start();
-                } else {
-                    mCloseAnimatorSet.cancel();
-                    mOpenAnimatorSet.start();
-                }
+                animateIcon(true);
             }
-            mMenuOpened = true;
-            int delay = 0;
-            for (int i = getChildCount() - 1; i >= 0; i--) {
-                View child = getChildAt(i);
-                if (child instanceof FloatingActionButton
-                        && child != mMenuButton && child.getVisibility() != GONE) {
-
-                    final FloatingActionButton fab = (FloatingActionButton) child;
-                    mUiHandler.postDelayed(new Runnable() {
-                        @Override
-                        public void run() {
-                            fab.show(animate);
-                            Label label = (Label) fab.getTag(R.id.fab_label);
-                            if (label != null) {
-                                label.show(animate);
-                            }
-                        }
-                    }, delay);
-                    delay += mAnimationDelayPerItem;
-                }
+            mMenuState = STATE_OPENING;
+            if (mMenuButtonHidePending) {
+                mMenuButtonHidePending = false;
+                mMenuButtonState = BUTTON_SHOWN;
             }
+            animateItems(true, animate);
 
             if (mToggleListener != null) {
                 mToggleListener.onMenuToggle(true);
@@ -522,37 +797,13 @@ public class FloatingActionMenu extends ViewGroup {
         }
     }
 
-    public void close(final boolean animate) {
+    public void close(boolean animate) {
         if (isOpened()) {
             if (mIconAnimated) {
-                if (mIconToggleSet != null) {
-                    mIconToggleSet.start();
-                } else {
-                    mCloseAnimatorSet.start();
-                    mOpenAnimatorSet.cancel();
-                }
-            }
-            mMenuOpened = false;
-            int delay = 0;
-            for (int i = 0; i < getChildCount(); i++) {
-                View child = getChildAt(i);
-                if (child instanceof FloatingActionButton
-                        && child != mMenuButton && child.getVisibility() != GONE) {
-
-                    final FloatingActionButton fab = (FloatingActionButton) child;
-                    mUiHandler.postDelayed(new Runnable() {
-                        @Override
-                        public void run() {
-                            fab.hide(animate);
-                            Label label = (Label) fab.getTag(R.id.fab_label);
-                            if (label != null) {
-                                label.hide(animate);
-                            }
-                        }
-                    }, delay);
-                    delay += mAnimationDelayPerItem;
-                }
+                animateIcon(false);
             }
+            mMenuState = STATE_CLOSING;
+            animateItems(false, animate);
 
             if (mToggleListener != null) {
                 mToggleListener.onMenuToggle(false);
@@ -566,16 +817,17 @@ public class FloatingActionMenu extends ViewGroup {
      * @param interpolator the Interpolator to be used in animation
      */
     public void setIconAnimationInterpolator(Interpolator interpolator) {
-        mOpenAnimatorSet.setInterpolator(interpolator);
-        mCloseAnimatorSet.setInterpolator(interpolator);
+        setIconAnimationOpenInterpolator(interpolator);
+        setIconAnimationCloseInterpolator(interpolator);
     }
 
     public void setIconAnimationOpenInterpolator(Interpolator openInterpolator) {
-        mOpenAnimatorSet.setInterpolator(openInterpolator);
+        mOpenInterpolator = openInterpolator;
     }
 
     public void setIconAnimationCloseInterpolator(Interpolator closeInterpolator) {
-        mCloseAnimatorSet.setInterpolator(closeInterpolator);
+        mCloseInterpolator = closeInterpolator;
+        mReversedCloseInterpolator = closeInterpolator != null ? new ReversedInterpolator(closeInterpolator) : null;
     }
 
     /**
@@ -585,8 +837,7 @@ public class FloatingActionMenu extends ViewGroup {
      */
     public void setAnimated(boolean animated) {
         mIsAnimated = animated;
-        mOpenAnimatorSet.setDuration(animated ? ANIMATION_DURATION : 0);
-        mCloseAnimatorSet.setDuration(animated ? ANIMATION_DURATION : 0);
+        mIconAnimator.setDuration(animated ? ANIMATION_DURATION : 0);
     }
 
     public boolean isAnimated() {
@@ -635,30 +886,39 @@ public class FloatingActionMenu extends ViewGroup {
         mMenuButton.setHideAnimation(hideAnimation);
     }
 
+    /**
+     * @return true if the menu button is hidden or on its way to being hidden
+     */
     public boolean isMenuButtonHidden() {
-        return mMenuButton.isHidden();
+        return mMenuButtonState == BUTTON_HIDING || mMenuButtonState == BUTTON_HIDDEN;
     }
 
     public void showMenuButton(boolean animate) {
-        if (isMenuButtonHidden()) {
+        if (!isMenuButtonHidden()) return;
+
+        if (mMenuButtonHidePending) {
+            // The button is still waiting for the menu to close and has not been hidden yet
+            mMenuButtonHidePending = false;
+            mMenuButtonState = BUTTON_SHOWN;
+        } else {
             showMenuButtonWithImage(animate);
         }
     }
 
-    public void hideMenuButton(final boolean animate) {
-        if (!isMenuButtonHidden() && !mIsMenuButtonAnimationRunning) {
-            mIsMenuButtonAnimationRunning = true;
-            if (isOpened()) {
-                close(animate);
-                mUiHandler.postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        hideMenuButtonWithImage(animate);
-                    }
-                }, mAnimationDelayPerItem * mButtonsCount);
-            } else {
-                hideMenuButtonWithImage(animate);
-            }
+    /**
+     * Hides the menu button. If the menu is open it is closed first, and the button is hidden
+     * once the items are gone.
+     */
+    public void hideMenuButton(boolean animate) {
+        if (isMenuButtonHidden()) return;
+
+        if (mMenuState != STATE_CLOSED) {
+            mMenuButtonState = BUTTON_HIDING;
+            mMenuButtonHidePending = true;
+            mMenuButtonHideAnimated = animate;
+            close(animate);
+        } else {
+            hideMenuButtonWithImage(animate);
         }
     }
 
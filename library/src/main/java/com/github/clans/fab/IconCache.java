@@ -0,0 +1,97 @@
+package com.github.clans.fab;
+
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+/**
+ * Icons loaded by resource id, mutated and scaled down once to the size they are drawn at, and
+ * shared between <b>FloatingActionButtons</b> through their constant state. The cache is emptied
+ * whenever the resource configuration changes, e.g. for night mode or a new layout direction.
+ */
+final class IconCache {
+
+    private static final int MAX_ICONS = 32;
+
+    private static final LruCache<Key, Drawable.ConstantState> sIcons = new LruCache<>(MAX_ICONS);
+    private static final Configuration sConfiguration = new Configuration();
+
+    private IconCache() {
+    }
+
+    /**
+     * Returns a new drawable for the icon with the given id, never larger than {@code maxSize}
+     * pixels on either side.
+     */
+    @SuppressWarnings("deprecation")
+    static Drawable getIcon(Resources res, int resId, int maxSize) {
+        Configuration configuration = res.getConfiguration();
+        if (!sConfiguration.equals(configuration)) {
+            sIcons.evictAll();
+            sConfiguration.setTo(configuration);
+        }
+
+        Key key = new Key(resId, maxSize, res.getDisplayMetrics().density);
+        Drawable.ConstantState state = sIcons.get(key);
+        if (state == null) {
+            Drawable drawable = scaleDown(res, res.getDrawable(resId).mutate(), maxSize);
+            state = drawable.getConstantState();
+            if (state == null) {
+                return drawable;
+            }
+            sIcons.put(key, state);
+        }
+        return state.newDrawable(res);
+    }
+
+    private static Drawable scaleDown(Resources res, Drawable drawable, int maxSize) {
+        if (!(drawable instanceof BitmapDrawable)) {
+            return drawable;
+        }
+
+        Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+        int size = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (size <= maxSize) {
+            return drawable;
+        }
+
+        int width = Math.max(1, bitmap.getWidth() * maxSize / size);
+        int height = Math.max(1, bitmap.getHeight() * maxSize / size);
+        return new BitmapDrawable(res, Bitmap.createScaledBitmap(bitmap, width, height, true));
+    }
+
+    private static final class Key {
+
+        private final int mResId;
+        private final int mMaxSize;
+        private final float mDensity;
+
+        private Key(int resId, int maxSize, float density) {
+            mResId = resId;
+            mMaxSize = maxSize;
+            mDensity = density;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return mResId == key.mResId
+                    && mMaxSize == key.mMaxSize
+                    && Float.compare(mDensity, key.mDensity) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mResId;
+            result = 31 * result + mMaxSize;
+            result = 31 * result + Float.floatToIntBits(mDensity);
+            return result;
+        }
+    }
+}
@@ -3,14 +3,12 @@ package com.github.clans.fab;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
 import android.graphics.Outline;
 import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
-import android.graphics.RectF;
-import android.graphics.Xfermode;
+import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.LayerDrawable;
 import android.graphics.drawable.RippleDrawable;
@@ -19,7 +17,6 @@ import android.graphics.drawable.StateListDrawable;
 import android.graphics.drawable.shapes.RoundRectShape;
 import android.os.Build;
 import android.util.AttributeSet;
-import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewOutlineProvider;
@@ -28,24 +25,22 @@ import android.widget.TextView;
 
 public class Label extends TextView {
 
-    private static final Xfermode PORTER_DUFF_CLEAR = new PorterDuffXfermode(PorterDuff.Mode.CLEAR);
-
     private int mShadowRadius;
     private int mShadowXOffset;
     private int mShadowYOffset;
     private int mShadowColor;
     private Drawable mBackgroundDrawable;
     private boolean mShowShadow = true;
-    private int mRawWidth;
-    private int mRawHeight;
     private int mColorNormal;
     private int mColorPressed;
     private int mColorRipple;
     private int mCornerRadius;
     private FloatingActionButton mFab;
+    private PressTracker mPressTracker;
     private Animation mShowAnimation;
     private Animation mHideAnimation;
     private boolean mUsingStyle;
+    private final AnimationLayer mAnimationLayer = new AnimationLayer(this);
 
     public Label(Context context) {
         super(context);
@@ -66,16 +61,10 @@ public class Label extends TextView {
     }
 
     private int calculateMeasuredWidth() {
-        if (mRawWidth == 0) {
-            mRawWidth = getMeasuredWidth();
-        }
         return getMeasuredWidth() + calculateShadowWidth();
     }
 
     private int calculateMeasuredHeight() {
-        if (mRawHeight == 0) {
-            mRawHeight = getMeasuredHeight();
-        }
         return getMeasuredHeight() + calculateShadowHeight();
     }
 
@@ -119,8 +108,8 @@ public class Label extends TextView {
     @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     private Drawable createFillDrawable() {
         StateListDrawable drawable = new StateListDrawable();
-        drawable.addState(new int[]{android.R.attr.state_pressed}, createRectDrawable(mColorPressed));
-        drawable.addState(new int[]{}, createRectDrawable(mColorNormal));
+        drawable.addState(PRESSED_STATE_SET, createRectDrawable(mColorPressed));
+        drawable.addState(EMPTY_STATE_SET, createRectDrawable(mColorNormal));
 
         if (Util.hasLollipop()) {
             RippleDrawable ripple = new RippleDrawable(new ColorStateList(new int[][]{{}},
@@ -189,6 +178,38 @@ public class Label extends TextView {
         }
     }
 
+    @Override
+    protected void onAnimationStart() {
+        super.onAnimationStart();
+        mAnimationLayer.start();
+    }
+
+    @Override
+    protected void onAnimationEnd() {
+        super.onAnimationEnd();
+        mAnimationLayer.stop();
+    }
+
+    @Override
+    public void setAnimation(Animation animation) {
+        super.setAnimation(animation);
+        if (animation == null) {
+            mAnimationLayer.stop();
+        }
+    }
+
+    @Override
+    public void clearAnimation() {
+        super.clearAnimation();
+        mAnimationLayer.stop();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mAnimationLayer.stop();
+        super.onDetachedFromWindow();
+    }
+
     @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     void onActionDown() {
         if (mUsingStyle) {
@@ -197,10 +218,10 @@ public class Label extends TextView {
 
         if (mBackgroundDrawable instanceof StateListDrawable) {
             StateListDrawable drawable = (StateListDrawable) mBackgroundDrawable;
-            drawable.setState(new int[]{android.R.attr.state_pressed});
+            drawable.setState(PRESSED_STATE_SET);
         } else if (Util.hasLollipop() && mBackgroundDrawable instanceof RippleDrawable) {
             RippleDrawable ripple = (RippleDrawable) mBackgroundDrawable;
-            ripple.setState(new int[]{android.R.attr.state_enabled, android.R.attr.state_pressed});
+            ripple.setState(PRESSED_ENABLED_STATE_SET);
             ripple.setHotspot(getMeasuredWidth() / 2, getMeasuredHeight() / 2);
             ripple.setVisible(true, true);
         }
@@ -214,10 +235,10 @@ public class Label extends TextView {
 
         if (mBackgroundDrawable instanceof StateListDrawable) {
             StateListDrawable drawable = (StateListDrawable) mBackgroundDrawable;
-            drawable.setState(new int[]{});
+            drawable.setState(EMPTY_STATE_SET);
         } else if (Util.hasLollipop() && mBackgroundDrawable instanceof RippleDrawable) {
             RippleDrawable ripple = (RippleDrawable) mBackgroundDrawable;
-            ripple.setState(new int[]{});
+            ripple.setState(EMPTY_STATE_SET);
             ripple.setHotspot(getMeasuredWidth() / 2, getMeasuredHeight() / 2);
             ripple.setVisible(true, true);
         }
@@ -272,71 +293,125 @@ public class Label extends TextView {
     public boolean onTouchEvent(MotionEvent event) {
         if (mFab == null || mFab.getOnClickListener() == null) return false;
 
-        int action = event.getAction();
-        switch (action) {
-            case MotionEvent.ACTION_UP:
-                onActionUp();
-                mFab.onActionUp();
-                break;
+        if (mPressTracker == null) {
+            mPressTracker = new PressTracker(getContext(), new PressTracker.Callback() {
+                @Override
+                public boolean onPress() {
+                    onActionDown();
+                    if (mFab != null) {
+                        mFab.onActionDown();
+                    }
+                    return true;
+                }
+
+                @Override
+                public void onRelease(boolean tap) {
+                    onActionUp();
+                    if (mFab != null) {
+                        mFab.onActionUp();
+                    }
+                }
+            });
         }
 
-        mGestureDetector.onTouchEvent(event);
+        mPressTracker.onTouchEvent(event);
         return super.onTouchEvent(event);
     }
 
-    GestureDetector mGestureDetector = new GestureDetector(getContext(), new GestureDetector.SimpleOnGestureListener() {
-
-        @Override
-        public boolean onDown(MotionEvent e) {
-            onActionDown();
-            if (mFab != null) {
-                mFab.onActionDown();
-            }
-            return super.onDown(e);
-        }
-
-        @Override
-        public boolean onSingleTapUp(MotionEvent e) {
-            onActionUp();
-            if (mFab != null) {
-                mFab.onActionUp();
-            }
-            return super.onSingleTapUp(e);
-        }
-    });
-
     private class Shadow extends Drawable {
 
-        private Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        private Paint mErase = new Paint(Paint.ANTI_ALIAS_FLAG);
+        private Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        private Bitmap mBitmap;
+        private Rect[] mSrc = new Rect[9];
+        private Rect[] mDst = new Rect[9];
+        private int mPatchCount;
 
         private Shadow() {
             this.init();
         }
 
         private void init() {
-            setLayerType(LAYER_TYPE_SOFTWARE, null);
-            mPaint.setStyle(Paint.Style.FILL);
-            mPaint.setColor(mColorNormal);
-
-            mErase.setXfermode(PORTER_DUFF_CLEAR);
+            mPaint.setColor(mShadowColor);
 
             if (!isInEditMode()) {
-                mPaint.setShadowLayer(mShadowRadius, mShadowXOffset, mShadowYOffset, mShadowColor);
+                mBitmap = ShadowCache.getRoundRectShadow(mCornerRadius, mShadowRadius, mShadowXOffset,
+                        mShadowYOffset, getResources().getDisplayMetrics().density);
+            }
+
+            for (int i = 0; i < mSrc.length; i++) {
+                mSrc[i] = new Rect();
+                mDst[i] = new Rect();
+            }
+        }
+
+        /**
+         * Splits the cached shadow into a nine-patch: corners are kept as is, while the middle
+         * row and column are stretched to the size of the label. Empty patches are dropped, so
+         * {@link #draw(Canvas)} only blits what is left.
+         */
+        @Override
+        protected void onBoundsChange(Rect bounds) {
+            mPatchCount = 0;
+            if (mBitmap == null) return;
+
+            int srcWidth = mBitmap.getWidth();
+            int srcHeight = mBitmap.getHeight();
+            int srcLeft = srcWidth / 2;
+            int srcTop = srcHeight / 2;
+            int srcRight = srcWidth - srcLeft - 1;
+            int srcBottom = srcHeight - srcTop - 1;
+            int dstLeft = fixedStart(bounds.width(), srcLeft, srcRight);
+            int dstTop = fixedStart(bounds.height(), srcTop, srcBottom);
+            int dstRight = bounds.width() - Math.min(srcRight, bounds.width() - dstLeft);
+            int dstBottom = bounds.height() - Math.min(srcBottom, bounds.height() - dstTop);
+
+            for (int row = 0; row < 3; row++) {
+                for (int column = 0; column < 3; column++) {
+                    Rect dst = mDst[mPatchCount];
+                    dst.set(
+                            bounds.left + edge(column, dstLeft, dstRight, bounds.width()),
+                            bounds.top + edge(row, dstTop, dstBottom, bounds.height()),
+                            bounds.left + edge(column + 1, dstLeft, dstRight, bounds.width()),
+                            bounds.top + edge(row + 1, dstTop, dstBottom, bounds.height())
+                    );
+                    if (dst.isEmpty()) continue;
+
+                    mSrc[mPatchCount++].set(
+                            edge(column, srcLeft, srcLeft + 1, srcWidth),
+                            edge(row, srcTop, srcTop + 1, srcHeight),
+                            edge(column + 1, srcLeft, srcLeft + 1, srcWidth),
+                            edge(row + 1, srcTop, srcTop + 1, srcHeight)
+                    );
+                }
             }
         }
 
         @Override
         public void draw(Canvas canvas) {
-            RectF shadowRect = new RectF(
-                    mShadowRadius + Math.abs(mShadowXOffset),
-                    mShadowRadius + Math.abs(mShadowYOffset),
-                    mRawWidth,
-                    mRawHeight
-            );
+            for (int i = 0; i < mPatchCount; i++) {
+                canvas.drawBitmap(mBitmap, mSrc[i], mDst[i], mPaint);
+            }
+        }
 
-            canvas.drawRoundRect(shadowRect, mCornerRadius, mCornerRadius, mPaint);
-            canvas.drawRoundRect(shadowRect, mCornerRadius, mCornerRadius, mErase);
+        /**
+         * Returns the size of the leading fixed part, shrinking both fixed parts proportionally
+         * when the label is smaller than the shadow corners.
+         */
+        private int fixedStart(int size, int start, int end) {
+            return size >= start + end ? start : size * start / (start + end);
+        }
+
+        private int edge(int index, int first, int second, int size) {
+            switch (index) {
+                case 0:
+                    return 0;
+                case 1:
+                    return first;
+                case 2:
+                    return second;
+                default:
+                    return size;
+            }
         }
 
         @Override
@@ -0,0 +1,75 @@
+package com.github.clans.fab;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.ViewConfiguration;
+
+/**
+ * Minimal replacement for {@link android.view.GestureDetector} that only tracks the press and
+ * release of the first pointer. A press ends when the pointer goes up, moves beyond the touch
+ * slop or the gesture is cancelled; only the first case counts as a tap.
+ */
+final class PressTracker {
+
+    interface Callback {
+
+        /**
+         * @return true to track the gesture, false to ignore it until the next down event
+         */
+        boolean onPress();
+
+        void onRelease(boolean tap);
+    }
+
+    private final int mTouchSlopSquare;
+    private final Callback mCallback;
+    private boolean mPressed;
+    private float mDownX;
+    private float mDownY;
+
+    PressTracker(Context context, Callback callback) {
+        int touchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        mTouchSlopSquare = touchSlop * touchSlop;
+        mCallback = callback;
+    }
+
+    /**
+     * @return true while a press is being tracked
+     */
+    boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mDownX = event.getX();
+                mDownY = event.getY();
+                mPressed = mCallback.onPress();
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (mPressed) {
+                    float dx = event.getX() - mDownX;
+                    float dy = event.getY() - mDownY;
+                    if (dx * dx + dy * dy > mTouchSlopSquare) {
+                        release(false);
+                    }
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+                if (mPressed) {
+                    release(true);
+                    return true;
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+            case MotionEvent.ACTION_CANCEL:
+                if (mPressed) {
+                    release(false);
+                }
+                break;
+        }
+        return mPressed;
+    }
+
+    private void release(boolean tap) {
+        mPressed = false;
+        mCallback.onRelease(tap);
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.clans.fab;
+
+import android.animation.ObjectAnimator;
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewParent;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+/**
+ * Decides when scrolling should hide or show a <b>FloatingActionButton</b>. Scroll deltas are
+ * accumulated per direction, so slow scrolls add up and short jitters in the other direction do
+ * not toggle the button. Hiding and showing use separate thresholds, and a fast enough scroll
+ * reacts straight away.
+ * <p>
+ * In translating mode the button instead follows the content by its translation, between fully
+ * shown and fully below its parent, and settles at the nearer end once scrolling stops.
+ */
+final class ScrollHideEngine implements ScrollSource.Callback {
+
+    private static final float HIDE_THRESHOLD_DP = 24f;
+    private static final float SHOW_THRESHOLD_DP = 40f;
+    private static final float FLING_VELOCITY_DP = 1500f;
+    private static final long VELOCITY_WINDOW_MS = 100;
+    private static final int SNAP_DURATION = 200;
+    private static final Interpolator SNAP_INTERPOLATOR = new DecelerateInterpolator();
+
+    private final FloatingActionButton mFab;
+    private final int mHideThreshold;
+    private final int mShowThreshold;
+    private final int mFlingVelocity;
+    private boolean mScrollingDown;
+    private int mDistance;
+    private float mVelocity;
+    private long mLastScrollTime;
+    private boolean mTranslating;
+    private ObjectAnimator mSnapAnimator;
+
+    ScrollHideEngine(FloatingActionButton fab) {
+        mFab = fab;
+        mHideThreshold = Util.dpToPx(fab.getContext(), HIDE_THRESHOLD_DP);
+        mShowThreshold = Util.dpToPx(fab.getContext(), SHOW_THRESHOLD_DP);
+        mFlingVelocity = Util.dpToPx(fab.getContext(), FLING_VELOCITY_DP);
+    }
+
+    @Override
+    public void onScrolled(int dy) {
+        if (dy == 0) return;
+
+        if (mTranslating) {
+            translate(dy);
+            return;
+        }
+
+        long now = SystemClock.uptimeMillis();
+        long elapsed = now - mLastScrollTime;
+        mLastScrollTime = now;
+
+        boolean scrollingDown = dy > 0;
+        if (scrollingDown != mScrollingDown) {
+            mScrollingDown = scrollingDown;
+            mDistance = 0;
+            mVelocity = 0f;
+        }
+
+        int distance = Math.abs(dy);
+        mDistance += distance;
+        if (elapsed > VELOCITY_WINDOW_MS) {
+            mVelocity = 0f;
+        } else if (elapsed > 0) {
+            mVelocity = (mVelocity + distance * 1000f / elapsed) / 2f;
+        }
+
+        if (scrollingDown == mFab.isHidden()) {
+            // Already hidden while scrolling down, or shown while scrolling up
+            mDistance = 0;
+            return;
+        }
+
+        boolean fling = mVelocity >= mFlingVelocity;
+        if (scrollingDown) {
+            if (mDistance >= mHideThreshold || fling) {
+                mDistance = 0;
+                mFab.hide(R.anim.fab_hide_to_bottom);
+            }
+        } else if (mDistance >= mShowThreshold || fling) {
+            mDistance = 0;
+            mFab.show(R.anim.fab_show_from_bottom);
+        }
+    }
+
+    @Override
+    public void onScrollStopped() {
+        if (!mTranslating) return;
+
+        float hiddenTranslation = getHiddenTranslation();
+        float translation = mFab.getTranslationY();
+        if (translation > 0f && translation < hiddenTranslation) {
+            if (mSnapAnimator == null) {
+                // Not mFab.animate(): show and hide cancel that animator, and the snap would cancel theirs
+                mSnapAnimator = ObjectAnimator.ofFloat(mFab, View.TRANSLATION_Y, 0f);
+                mSnapAnimator.setInterpolator(SNAP_INTERPOLATOR);
+                mSnapAnimator.setDuration(SNAP_DURATION);
+            }
+            mSnapAnimator.setFloatValues(translation * 2 > hiddenTranslation ? hiddenTranslation : 0f);
+            mSnapAnimator.start();
+        }
+    }
+
+    /**
+     * Forgets the distance and velocity gathered so far, e.g. when the scrolling view changes.
+     */
+    void reset() {
+        mScrollingDown = false;
+        mDistance = 0;
+        mVelocity = 0f;
+        mLastScrollTime = 0;
+    }
+
+    void setTranslating(boolean translating) {
+        if (mTranslating != translating) {
+            mTranslating = translating;
+            mDistance = 0;
+            stopSnapping();
+            mFab.setTranslationY(0f);
+        }
+    }
+
+    boolean isTranslating() {
+        return mTranslating;
+    }
+
+    private void translate(int dy) {
+        stopSnapping();
+        float translation = mFab.getTranslationY() + dy;
+        mFab.setTranslationY(Math.max(0f, Math.min(getHiddenTranslation(), translation)));
+    }
+
+    private void stopSnapping() {
+        if (mSnapAnimator != null) {
+            mSnapAnimator.cancel();
+        }
+    }
+
+    /**
+     * Returns the translation that moves the button just below the bottom of its parent.
+     */
+    private float getHiddenTranslation() {
+        ViewParent parent = mFab.getParent();
+        if (parent instanceof View) {
+            return ((View) parent).getHeight() - mFab.getTop();
+        }
+        return mFab.getHeight();
+    }
+}
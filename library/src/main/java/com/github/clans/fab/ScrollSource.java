@@ -0,0 +1,32 @@
+package com.github.clans.fab;
+
+/**
+ * Anything that scrolls and can report it to a <b>FloatingActionButton</b>. Ready-made sources for
+ * RecyclerView, AbsListView and views that scroll their own content are created by
+ * {@link ScrollSources}; custom scrolling containers can implement this interface directly.
+ * <p>
+ * A source keeps its listeners registered for as long as it lives and only swaps the callback it
+ * reports to, so switching a fab between sources is cheap. A source drives one fab at a time.
+ */
+public interface ScrollSource {
+
+    interface Callback {
+
+        /**
+         * @param dy the distance scrolled since the last call, positive when the content moves up
+         */
+        void onScrolled(int dy);
+
+        void onScrollStopped();
+    }
+
+    /**
+     * @param callback the callback to report scrolling to, or null to stop reporting
+     */
+    void setCallback(Callback callback);
+
+    /**
+     * Stops listening to the scrolling view. The source cannot be used afterwards.
+     */
+    void release();
+}
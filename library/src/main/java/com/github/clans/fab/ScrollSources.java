@@ -0,0 +1,255 @@
+package com.github.clans.fab;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.widget.AbsListView;
+
+/**
+ * Factory methods for the {@link ScrollSource}s the library supports out of the box.
+ */
+public final class ScrollSources {
+
+    private static final long VIEW_SCROLL_IDLE_DELAY = 150;
+
+    private ScrollSources() {
+    }
+
+    /**
+     * Returns a source reporting the vertical scrolling of a RecyclerView. Its listener is added
+     * alongside the ones the RecyclerView already has.
+     */
+    public static ScrollSource forRecyclerView(RecyclerView recyclerView) {
+        return new RecyclerViewSource(recyclerView);
+    }
+
+    /**
+     * Returns a source reporting the scrolling of an AbsListView in pixels.
+     */
+    public static ScrollSource forListView(AbsListView listView) {
+        return forListView(listView, null);
+    }
+
+    /**
+     * Returns a source reporting the scrolling of an AbsListView in pixels. An AbsListView holds a
+     * single scroll listener, so the one the app uses has to be passed here to keep receiving its
+     * callbacks. It is given back to the list when the source is released.
+     */
+    public static ScrollSource forListView(AbsListView listView, AbsListView.OnScrollListener listener) {
+        return new ListViewSource(listView, listener);
+    }
+
+    /**
+     * Returns a source reporting changes to the scroll Y of any view that scrolls its own content,
+     * such as ScrollView, NestedScrollView or WebView. Scrolling is considered stopped once the
+     * scroll position has not changed for a short while.
+     */
+    public static ScrollSource forView(View view) {
+        return new ViewSource(view);
+    }
+
+    private abstract static class BaseSource implements ScrollSource {
+
+        private Callback mCallback;
+
+        @Override
+        public void setCallback(Callback callback) {
+            mCallback = callback;
+        }
+
+        void dispatchScrolled(int dy) {
+            if (mCallback != null && dy != 0) {
+                mCallback.onScrolled(dy);
+            }
+        }
+
+        void dispatchScrollStopped() {
+            if (mCallback != null) {
+                mCallback.onScrollStopped();
+            }
+        }
+    }
+
+    private static final class RecyclerViewSource extends BaseSource {
+
+        private final RecyclerView mRecyclerView;
+
+        private final RecyclerView.OnScrollListener mListener = new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                dispatchScrolled(dy);
+            }
+
+            @Override
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    dispatchScrollStopped();
+                }
+            }
+        };
+
+        private RecyclerViewSource(RecyclerView recyclerView) {
+            mRecyclerView = recyclerView;
+            mRecyclerView.addOnScrollListener(mListener);
+        }
+
+        @Override
+        public void release() {
+            setCallback(null);
+            mRecyclerView.removeOnScrollListener(mListener);
+        }
+    }
+
+    /**
+     * Turns AbsListView scroll callbacks into pixel deltas, from the position and size of the
+     * first visible child only.
+     */
+    private static final class ListViewSource extends BaseSource implements AbsListView.OnScrollListener {
+
+        private final AbsListView mListView;
+        private final AbsListView.OnScrollListener mDelegate;
+        private boolean mHasPreviousItem;
+        private int mPreviousFirstItem;
+        private int mPreviousTop;
+        private int mPreviousHeight;
+
+        private ListViewSource(AbsListView listView, AbsListView.OnScrollListener delegate) {
+            mListView = listView;
+            mDelegate = delegate;
+            mListView.setOnScrollListener(this);
+        }
+
+        @Override
+        public void release() {
+            setCallback(null);
+            mListView.setOnScrollListener(mDelegate);
+        }
+
+        @Override
+        public void onScrollStateChanged(AbsListView view, int scrollState) {
+            if (mDelegate != null) {
+                mDelegate.onScrollStateChanged(view, scrollState);
+            }
+
+            if (scrollState == SCROLL_STATE_IDLE) {
+                dispatchScrollStopped();
+            }
+        }
+
+        @Override
+        public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+            if (mDelegate != null) {
+                mDelegate.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
+            }
+
+            View firstChild = view.getChildAt(0);
+            if (firstChild == null) {
+                mHasPreviousItem = false;
+                return;
+            }
+
+            int top = firstChild.getTop();
+            int height = firstChild.getHeight();
+            if (mHasPreviousItem) {
+                dispatchScrolled(calculateScrollDelta(firstVisibleItem, top, height));
+            }
+
+            mHasPreviousItem = true;
+            mPreviousFirstItem = firstVisibleItem;
+            mPreviousTop = top;
+            mPreviousHeight = height;
+        }
+
+        /**
+         * Rows between the previous and the current first item are assumed to be as tall as the
+         * one of them that is known: the previous first row when scrolling down, the current one
+         * when scrolling up.
+         */
+        private int calculateScrollDelta(int firstItem, int top, int height) {
+            if (firstItem == mPreviousFirstItem) {
+                return mPreviousTop - top;
+            } else if (firstItem > mPreviousFirstItem) {
+                return mPreviousTop + mPreviousHeight * (firstItem - mPreviousFirstItem) - top;
+            } else {
+                return mPreviousTop - (top + height * (mPreviousFirstItem - firstItem));
+            }
+        }
+    }
+
+    /**
+     * Listens to the observer of the window the view is attached to, and only while it is
+     * attached: an observer fetched from a detached view is a temporary one that cannot be used to
+     * remove the listener again.
+     */
+    private static final class ViewSource extends BaseSource
+            implements ViewTreeObserver.OnScrollChangedListener, View.OnAttachStateChangeListener, Runnable {
+
+        private final View mView;
+        private ViewTreeObserver mObserver;
+        private int mLastScrollY;
+
+        private ViewSource(View view) {
+            mView = view;
+            mView.addOnAttachStateChangeListener(this);
+            if (mView.getWindowToken() != null) {
+                register();
+            }
+        }
+
+        @Override
+        public void release() {
+            setCallback(null);
+            mView.removeOnAttachStateChangeListener(this);
+            unregister();
+        }
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            register();
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            unregister();
+        }
+
+        private void register() {
+            if (mObserver == null) {
+                mObserver = mView.getViewTreeObserver();
+                mObserver.addOnScrollChangedListener(this);
+                mLastScrollY = mView.getScrollY();
+            }
+        }
+
+        private void unregister() {
+            mView.removeCallbacks(this);
+            if (mObserver != null) {
+                if (mObserver.isAlive()) {
+                    mObserver.removeOnScrollChangedListener(this);
+                }
+                mObserver = null;
+            }
+        }
+
+        /**
+         * Called for any scroll in the window, so only changes to this view's position count.
+         */
+        @Override
+        public void onScrollChanged() {
+            int scrollY = mView.getScrollY();
+            if (scrollY != mLastScrollY) {
+                int dy = scrollY - mLastScrollY;
+                mLastScrollY = scrollY;
+                dispatchScrolled(dy);
+
+                mView.removeCallbacks(this);
+                mView.postDelayed(this, VIEW_SCROLL_IDLE_DELAY);
+            }
+        }
+
+        @Override
+        public void run() {
+            dispatchScrollStopped();
+        }
+    }
+}
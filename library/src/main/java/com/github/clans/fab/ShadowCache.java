@@ -0,0 +1,196 @@
+package com.github.clans.fab;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.RectF;
+import android.graphics.Xfermode;
+import android.util.LruCache;
+
+/**
+ * Process-wide cache of pre-blurred shadow bitmaps. Every view with the same shadow spec draws
+ * the same bitmap, so a menu full of identical buttons and labels costs a single blur.
+ * <p>
+ * Shadows are stored as {@link Bitmap.Config#ALPHA_8} masks and take their color from the paint
+ * they are drawn with, so a shadow color change never needs a new bitmap.
+ */
+public final class ShadowCache {
+
+    private static final int SHAPE_CIRCLE = 0;
+    private static final int SHAPE_ROUND_RECT = 1;
+
+    private static final Xfermode PORTER_DUFF_CLEAR = new PorterDuffXfermode(PorterDuff.Mode.CLEAR);
+    private static final int MAX_SIZE_BYTES = (int) Math.min(Runtime.getRuntime().maxMemory() / 32,
+            4 * 1024 * 1024);
+
+    private static final LruCache<Key, Bitmap> sCache = new LruCache<Key, Bitmap>(MAX_SIZE_BYTES) {
+        @Override
+        protected int sizeOf(Key key, Bitmap value) {
+            return value.getRowBytes() * value.getHeight();
+        }
+    };
+
+    private ShadowCache() {
+    }
+
+    /**
+     * Returns a mask holding only the shadow of a circle, sized to cover the circle and the
+     * shadow around it. The circle itself is centered and erased.
+     */
+    static Bitmap getCircleShadow(int diameter, int shadowRadius, int shadowXOffset, int shadowYOffset,
+                                  float density) {
+        Key key = new Key(SHAPE_CIRCLE, diameter, shadowRadius, shadowXOffset, shadowYOffset, density);
+        Bitmap bitmap = sCache.get(key);
+        if (bitmap == null) {
+            bitmap = createCircleShadow(diameter, shadowRadius, shadowXOffset, shadowYOffset);
+            sCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Returns a stretchable mask holding only the shadow of a round rect. The middle row and
+     * column are far enough from the corners to be uniform, so the bitmap can be drawn as a
+     * nine-patch around a round rect of any size. The round rect is inset by the shadow extent
+     * on every side and erased.
+     */
+    static Bitmap getRoundRectShadow(int cornerRadius, int shadowRadius, int shadowXOffset, int shadowYOffset,
+                                     float density) {
+        Key key = new Key(SHAPE_ROUND_RECT, cornerRadius, shadowRadius, shadowXOffset, shadowYOffset, density);
+        Bitmap bitmap = sCache.get(key);
+        if (bitmap == null) {
+            bitmap = createRoundRectShadow(cornerRadius, shadowRadius, shadowXOffset, shadowYOffset);
+            sCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    private static Bitmap createCircleShadow(int diameter, int shadowRadius, int shadowXOffset,
+                                             int shadowYOffset) {
+        int width = diameter + (shadowRadius + Math.abs(shadowXOffset)) * 2;
+        int height = diameter + (shadowRadius + Math.abs(shadowYOffset)) * 2;
+        float centerX = width / 2;
+        float centerY = height / 2;
+        float radius = diameter / 2;
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        canvas.drawCircle(centerX, centerY, radius,
+                createShadowPaint(shadowRadius, shadowXOffset, shadowYOffset));
+        canvas.drawCircle(centerX, centerY, radius, createErasePaint());
+        return extractMask(bitmap);
+    }
+
+    private static Bitmap createRoundRectShadow(int cornerRadius, int shadowRadius, int shadowXOffset,
+                                                int shadowYOffset) {
+        int insetHorizontal = shadowRadius + Math.abs(shadowXOffset);
+        int insetVertical = shadowRadius + Math.abs(shadowYOffset);
+        int rectWidth = (cornerRadius + insetHorizontal) * 2 + 1;
+        int rectHeight = (cornerRadius + insetVertical) * 2 + 1;
+
+        Bitmap bitmap = Bitmap.createBitmap(rectWidth + insetHorizontal * 2, rectHeight + insetVertical * 2,
+                Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        RectF rect = new RectF(insetHorizontal, insetVertical, insetHorizontal + rectWidth,
+                insetVertical + rectHeight);
+        canvas.drawRoundRect(rect, cornerRadius, cornerRadius,
+                createShadowPaint(shadowRadius, shadowXOffset, shadowYOffset));
+        canvas.drawRoundRect(rect, cornerRadius, cornerRadius, createErasePaint());
+        return extractMask(bitmap);
+    }
+
+    /**
+     * The shadow is cast in opaque black, so the resulting alpha can be scaled by any shadow
+     * color at draw time.
+     */
+    private static Paint createShadowPaint(int shadowRadius, int shadowXOffset, int shadowYOffset) {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(Paint.Style.FILL);
+        paint.setColor(Color.BLACK);
+        paint.setShadowLayer(shadowRadius, shadowXOffset, shadowYOffset, Color.BLACK);
+        return paint;
+    }
+
+    private static Paint createErasePaint() {
+        Paint erase = new Paint(Paint.ANTI_ALIAS_FLAG);
+        erase.setXfermode(PORTER_DUFF_CLEAR);
+        return erase;
+    }
+
+    private static Bitmap extractMask(Bitmap bitmap) {
+        Bitmap mask = bitmap.extractAlpha();
+        bitmap.recycle();
+        return mask;
+    }
+
+    /**
+     * Returns the number of times a shadow was served from the cache.
+     */
+    public static int hitCount() {
+        return sCache.hitCount();
+    }
+
+    /**
+     * Returns the number of times a shadow had to be rendered.
+     */
+    public static int missCount() {
+        return sCache.missCount();
+    }
+
+    /**
+     * Drops all cached shadows. Views that already hold a bitmap keep drawing it.
+     */
+    public static void clear() {
+        sCache.evictAll();
+    }
+
+    private static final class Key {
+
+        private final int mShape;
+        private final int mSize;
+        private final int mShadowRadius;
+        private final int mShadowXOffset;
+        private final int mShadowYOffset;
+        private final float mDensity;
+
+        private Key(int shape, int size, int shadowRadius, int shadowXOffset, int shadowYOffset,
+                    float density) {
+            mShape = shape;
+            mSize = size;
+            mShadowRadius = shadowRadius;
+            mShadowXOffset = shadowXOffset;
+            mShadowYOffset = shadowYOffset;
+            mDensity = density;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return mShape == key.mShape
+                    && mSize == key.mSize
+                    && mShadowRadius == key.mShadowRadius
+                    && mShadowXOffset == key.mShadowXOffset
+                    && mShadowYOffset == key.mShadowYOffset
+                    && Float.compare(mDensity, key.mDensity) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mShape;
+            result = 31 * result + mSize;
+            result = 31 * result + mShadowRadius;
+            result = 31 * result + mShadowXOffset;
+            result = 31 * result + mShadowYOffset;
+            result = 31 * result + Float.floatToIntBits(mDensity);
+            return result;
+        }
+    }
+}
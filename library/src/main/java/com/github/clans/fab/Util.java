@@ -2,9 +2,17 @@ package com.github.clans.fab;
 
 import android.content.Context;
 import android.os.Build;
+import android.view.animation.Animation;
+import android.view.animation.AnimationSet;
+import android.view.animation.Interpolator;
+import android.view.animation.ScaleAnimation;
+
+import java.util.List;
 
 final class Util {
 
+    private static final int OVERSHOOT_SAMPLES = 32;
+
     private Util() {
     }
 
@@ -20,4 +28,41 @@ final class Util {
     static boolean hasLollipop() {
         return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP;
     }
+
+    /**
+     * Returns how far past their natural size the views running {@code animation} can grow, as a
+     * fraction of that size, by sampling the interpolators of its scale animations. Only getters
+     * are used, so the animation itself is left untouched. Show animations are expected to end at
+     * the natural size; since their start scale is not exposed, it is taken as 0, which can only
+     * overestimate. Whether a set shares its interpolator is not exposed either, so both the set's
+     * and the child's are sampled.
+     */
+    static float getScaleOvershoot(Animation animation) {
+        return animation != null ? getScalePeak(animation, 1f) - 1f : 0f;
+    }
+
+    private static float getScalePeak(Animation animation, float parentPeak) {
+        float peak = Math.max(parentPeak, getPeak(animation.getInterpolator()));
+
+        if (animation instanceof AnimationSet) {
+            List<Animation> animations = ((AnimationSet) animation).getAnimations();
+            float setPeak = 1f;
+            for (int i = 0; i < animations.size(); i++) {
+                setPeak = Math.max(setPeak, getScalePeak(animations.get(i), peak));
+            }
+            return setPeak;
+        }
+
+        return animation instanceof ScaleAnimation ? peak : 1f;
+    }
+
+    private static float getPeak(Interpolator interpolator) {
+        float peak = 1f;
+        if (interpolator != null) {
+            for (int i = 0; i <= OVERSHOOT_SAMPLES; i++) {
+                peak = Math.max(peak, interpolator.getInterpolation((float) i / OVERSHOOT_SAMPLES));
+            }
+        }
+        return peak;
+    }
 }